@@ -0,0 +1,97 @@
+package com.clinic.c46.Benchmarks;
+
+import com.clinic.c46.CommonService.command.examination.AddResultCommand;
+import com.clinic.c46.CommonService.command.examination.CompleteExaminationCommand;
+import com.clinic.c46.CommonService.command.examination.CreateExaminationCommand;
+import com.clinic.c46.ExaminationService.domain.aggregate.ExaminationAggregate;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Một hồ sơ khám trọn vẹn: tạo, nhập kết quả cho từng dịch vụ, hoàn tất.
+ * Mỗi lần đo dùng hồ sơ mới vì kết quả của một dịch vụ chỉ được nhập một lần.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ExaminationAggregateBenchmark {
+
+    // số dịch vụ trong gói khám
+    @Param({"5", "20"})
+    private int services;
+
+    private InMemoryAxon axon;
+    private String[] serviceIds;
+    private ObjectNode resultData;
+
+    @Setup(Level.Trial)
+    public void prepareData() {
+        serviceIds = new String[services];
+        for (int i = 0; i < services; i++) {
+            serviceIds[i] = UUID.randomUUID()
+                    .toString();
+        }
+
+        resultData = JsonNodeFactory.instance.objectNode()
+                .put("conclusion", "Bình thường")
+                .put("bloodPressure", "120/80")
+                .put("heartRate", 72)
+                .put("note", "Tái khám sau 6 tháng");
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        axon = InMemoryAxon.start(ExaminationAggregate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        axon.close();
+    }
+
+    @Benchmark
+    public void examineAndComplete() {
+        String examinationId = UUID.randomUUID()
+                .toString();
+        String doctorId = UUID.randomUUID()
+                .toString();
+
+        axon.send(CreateExaminationCommand.builder()
+                .examinationId(examinationId)
+                .patientId(UUID.randomUUID()
+                        .toString())
+                .medicalFormId(UUID.randomUUID()
+                        .toString())
+                .build());
+
+        for (String serviceId : serviceIds) {
+            axon.send(AddResultCommand.builder()
+                    .examId(examinationId)
+                    .doctorId(doctorId)
+                    .serviceId(serviceId)
+                    .data(resultData)
+                    .build());
+        }
+
+        axon.send(new CompleteExaminationCommand(examinationId));
+    }
+}
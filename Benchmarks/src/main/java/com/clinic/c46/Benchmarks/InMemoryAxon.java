@@ -0,0 +1,117 @@
+package com.clinic.c46.Benchmarks;
+
+import org.axonframework.common.Registration;
+import org.axonframework.common.caching.Cache;
+import org.axonframework.config.AggregateConfigurer;
+import org.axonframework.config.Configuration;
+import org.axonframework.config.Configurer;
+import org.axonframework.config.DefaultConfigurer;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Cấu hình Axon chạy hoàn toàn trong bộ nhớ cho benchmark: SimpleCommandBus, event store in-memory,
+ * repository có cache để mỗi command chỉ đo phần xử lý của aggregate (không replay lại event stream).
+ * Cache giữ tham chiếu mạnh: WeakReferenceCache bị GC dọn giữa các lần đo, khi đó phải replay
+ * toàn bộ event store in-memory và số đo phụ thuộc vào GC.
+ * <p>
+ * Không tự nạp ConfigurerModule trên classpath, nếu không connector Axon Server sẽ thay command bus / event store.
+ */
+final class InMemoryAxon implements AutoCloseable {
+
+    private final Configuration configuration;
+
+    private InMemoryAxon(Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    static InMemoryAxon start(Class<?>... aggregateTypes) {
+        Configurer configurer = DefaultConfigurer.defaultConfiguration(false)
+                .configureEmbeddedEventStore(config -> new InMemoryEventStorageEngine());
+        for (Class<?> aggregateType : aggregateTypes) {
+            registerAggregate(configurer, aggregateType);
+        }
+
+        Configuration configuration = configurer.buildConfiguration();
+        configuration.start();
+        return new InMemoryAxon(configuration);
+    }
+
+    private static <A> void registerAggregate(Configurer configurer, Class<A> aggregateType) {
+        configurer.configureAggregate(AggregateConfigurer.defaultConfiguration(aggregateType)
+                .configureCache(config -> new StrongReferenceCache()));
+    }
+
+    <R> R send(Object command) {
+        return configuration.commandGateway()
+                .sendAndWait(command);
+    }
+
+    /**
+     * Trạng thái hiện tại của aggregate, dùng để dựng payload snapshot cho benchmark serializer.
+     */
+    <A> A load(Class<A> aggregateType, String aggregateId) {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        try {
+            A aggregate = configuration.repository(aggregateType)
+                    .load(aggregateId)
+                    .invoke(Function.identity());
+            unitOfWork.commit();
+            return aggregate;
+        } catch (RuntimeException e) {
+            unitOfWork.rollback(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        configuration.shutdown();
+    }
+
+    private static final class StrongReferenceCache implements Cache {
+
+        private final Map<Object, Object> entries = new ConcurrentHashMap<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <K, V> V get(K key) {
+            return (V) entries.get(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            entries.put(key, value);
+        }
+
+        @Override
+        public boolean putIfAbsent(Object key, Object value) {
+            return entries.putIfAbsent(key, value) == null;
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            return entries.remove(key) != null;
+        }
+
+        @Override
+        public void removeAll() {
+            entries.clear();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public Registration registerCacheEntryListener(EntryListener cacheEntryListener) {
+            return () -> true;
+        }
+    }
+}
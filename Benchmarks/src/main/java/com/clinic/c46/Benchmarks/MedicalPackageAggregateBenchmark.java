@@ -0,0 +1,78 @@
+package com.clinic.c46.Benchmarks;
+
+import com.clinic.c46.MedicalPackageService.domain.aggregate.MedicalPackageAggregate;
+import com.clinic.c46.MedicalPackageService.domain.command.CreateMedicalPackageCommand;
+import com.clinic.c46.MedicalPackageService.domain.command.UpdateMedicalPackagePriceCommand;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cập nhật giá gói khám: giá đổi (ghi MedicalPackagePriceUpdatedEvent, tăng price version)
+ * và giá không đổi (command bị bỏ qua, không có event).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MedicalPackageAggregateBenchmark {
+
+    private static final BigDecimal PRICE = new BigDecimal("1500000.00");
+    private static final BigDecimal DISCOUNTED_PRICE = new BigDecimal("1200000.00");
+
+    private InMemoryAxon axon;
+    private String medicalPackageId;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        axon = InMemoryAxon.start(MedicalPackageAggregate.class);
+
+        medicalPackageId = UUID.randomUUID()
+                .toString();
+        axon.send(CreateMedicalPackageCommand.builder()
+                .medicalPackageId(medicalPackageId)
+                .name("Gói khám tổng quát")
+                .description("Khám sức khoẻ tổng quát định kỳ")
+                .serviceIds(Set.of(UUID.randomUUID()
+                        .toString(), UUID.randomUUID()
+                        .toString(), UUID.randomUUID()
+                        .toString()))
+                .price(PRICE)
+                .image("https://cdn.example.com/packages/general.png")
+                .build());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        axon.close();
+    }
+
+    @Benchmark
+    public void updatePrice() {
+        // xen kẽ hai mức giá để lần nào cũng là một giá mới
+        BigDecimal newPrice = (sequence++ & 1) == 0 ? DISCOUNTED_PRICE : PRICE;
+        axon.send(new UpdateMedicalPackagePriceCommand(medicalPackageId, newPrice));
+    }
+
+    @Benchmark
+    public void updatePriceUnchanged() {
+        axon.send(new UpdateMedicalPackagePriceCommand(medicalPackageId, PRICE));
+    }
+}
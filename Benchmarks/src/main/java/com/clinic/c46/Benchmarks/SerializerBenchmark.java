@@ -0,0 +1,147 @@
+package com.clinic.c46.Benchmarks;
+
+import com.clinic.c46.BookingService.domain.aggregate.SlotAggregate;
+import com.clinic.c46.BookingService.domain.command.CreateSlotCommand;
+import com.clinic.c46.BookingService.domain.command.LockSlotCommand;
+import com.clinic.c46.BookingService.domain.valueObject.SlotId;
+import com.clinic.c46.CommonService.config.CommonAxonConfig;
+import com.clinic.c46.CommonService.event.medicalPackage.MedicalPackageCreatedEvent;
+import com.clinic.c46.CommonService.serialization.CompactBinaryCodec;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializer do CommonAxonConfig tạo (serializer chung, Axon dùng lại cho event và message),
+ * với payload event và snapshot SlotAggregate, ở cả hai định dạng app.serializer.format.
+ * Kích thước payload (bytes/event) của từng tổ hợp @Param được in ra lúc setup, cạnh kết quả thời gian.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerBenchmark {
+
+    @Param({"json", "compact"})
+    private String format;
+
+    @Param({"medicalPackageCreated", "slotSnapshot"})
+    private String payload;
+
+    private Serializer serializer;
+    private Object value;
+    private SerializedObject<byte[]> serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CommonAxonConfig config = new CommonAxonConfig();
+        Field serializerFormat = ReflectionUtils.findField(CommonAxonConfig.class, "serializerFormat");
+        ReflectionUtils.makeAccessible(serializerFormat);
+        ReflectionUtils.setField(serializerFormat, config, format);
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        if ("compact".equals(format)) {
+            beanFactory.registerSingleton("compactBinaryCodec", config.compactBinaryCodec());
+        }
+
+        // cùng cấu hình mặc định với ObjectMapper mà Spring Boot inject vào CommonAxonConfig
+        serializer = config.serializer(Jackson2ObjectMapperBuilder.json()
+                .build(), beanFactory.getBeanProvider(CompactBinaryCodec.class));
+
+        value = switch (payload) {
+            case "medicalPackageCreated" -> medicalPackageCreated();
+            case "slotSnapshot" -> slotSnapshot();
+            default -> throw new IllegalArgumentException("Unknown payload " + payload);
+        };
+        serialized = serializer.serialize(value, byte[].class);
+        System.out.printf("# Serialized size: format=%s, payload=%s, %d bytes%n", format, payload,
+                serialized.getData().length);
+    }
+
+    @Benchmark
+    public SerializedObject<byte[]> serialize() {
+        return serializer.serialize(value, byte[].class);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return serializer.deserialize(serializer.serialize(value, byte[].class));
+    }
+
+    private static MedicalPackageCreatedEvent medicalPackageCreated() {
+        return MedicalPackageCreatedEvent.builder()
+                .medicalPackageId(UUID.randomUUID()
+                        .toString())
+                .name("Gói khám tổng quát")
+                .description("Khám sức khoẻ tổng quát định kỳ")
+                .price(new BigDecimal("1500000.00"))
+                .serviceIds(Set.of(UUID.randomUUID()
+                        .toString(), UUID.randomUUID()
+                        .toString(), UUID.randomUUID()
+                        .toString()))
+                .image("https://cdn.example.com/packages/general.png")
+                .priceVersion(1)
+                .build();
+    }
+
+    /**
+     * Slot đang giữ 40 chỗ, cỡ snapshot thường gặp với ngưỡng snapshot 50 event.
+     */
+    private static SlotAggregate slotSnapshot() {
+        try (InMemoryAxon axon = InMemoryAxon.start(SlotAggregate.class)) {
+            LocalDate date = LocalDate.now();
+            String medicalPackageId = UUID.randomUUID()
+                    .toString();
+            String slotId = SlotId.of(date, 0, medicalPackageId);
+            axon.send(CreateSlotCommand.builder()
+                    .slotId(slotId)
+                    .date(date)
+                    .shift(0)
+                    .medicalPackageId(medicalPackageId)
+                    .maxQuantity(50)
+                    .build());
+
+            for (int i = 0; i < 40; i++) {
+                axon.send(LockSlotCommand.builder()
+                        .slotId(slotId)
+                        .bookingId(UUID.randomUUID()
+                                .toString())
+                        .fingerprint(UUID.randomUUID()
+                                .toString())
+                        .name("Nguyễn Văn A")
+                        .email("patient@example.com")
+                        .phone("0901234567")
+                        .build());
+            }
+            return axon.load(SlotAggregate.class, slotId);
+        }
+    }
+}
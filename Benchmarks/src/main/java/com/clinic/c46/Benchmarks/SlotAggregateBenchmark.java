@@ -0,0 +1,96 @@
+package com.clinic.c46.Benchmarks;
+
+import com.clinic.c46.BookingService.domain.aggregate.SlotAggregate;
+import com.clinic.c46.BookingService.domain.command.CreateSlotCommand;
+import com.clinic.c46.BookingService.domain.command.LockSlotCommand;
+import com.clinic.c46.BookingService.domain.command.ReleaseLockedSlotCommand;
+import com.clinic.c46.BookingService.domain.valueObject.SlotId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giữ chỗ rồi nhả chỗ trên một slot (LockSlotCommand + ReleaseLockedSlotCommand), trạng thái slot không đổi sau mỗi lần đo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SlotAggregateBenchmark {
+
+    // số chỗ đang được giữ sẵn trên slot (kích thước map lockedSlots)
+    @Param({"0", "40"})
+    private int heldLocks;
+
+    private InMemoryAxon axon;
+    private String slotId;
+    private long sequence;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        axon = InMemoryAxon.start(SlotAggregate.class);
+
+        LocalDate date = LocalDate.now();
+        String medicalPackageId = UUID.randomUUID()
+                .toString();
+        slotId = SlotId.of(date, 0, medicalPackageId);
+        axon.send(CreateSlotCommand.builder()
+                .slotId(slotId)
+                .date(date)
+                .shift(0)
+                .medicalPackageId(medicalPackageId)
+                .maxQuantity(heldLocks + 1)
+                .build());
+
+        for (int i = 0; i < heldLocks; i++) {
+            axon.send(lockCommand(nextFingerprint()));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        axon.close();
+    }
+
+    @Benchmark
+    public void lockAndRelease() {
+        String fingerprint = nextFingerprint();
+        axon.send(lockCommand(fingerprint));
+        axon.send(ReleaseLockedSlotCommand.builder()
+                .slotId(slotId)
+                .fingerprint(fingerprint)
+                .build());
+    }
+
+    private LockSlotCommand lockCommand(String fingerprint) {
+        return LockSlotCommand.builder()
+                .slotId(slotId)
+                .bookingId(UUID.randomUUID()
+                        .toString())
+                .fingerprint(fingerprint)
+                .name("Nguyễn Văn A")
+                .email("patient@example.com")
+                .phone("0901234567")
+                .build();
+    }
+
+    private String nextFingerprint() {
+        return "fingerprint-" + sequence++;
+    }
+}
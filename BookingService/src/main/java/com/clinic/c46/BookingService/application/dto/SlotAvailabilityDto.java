@@ -0,0 +1,22 @@
+package com.clinic.c46.BookingService.application.dto;
+
+import com.clinic.c46.BookingService.domain.view.SlotView;
+import lombok.Builder;
+
+import java.time.LocalDate;
+
+@Builder
+public record SlotAvailabilityDto(String slotId, String medicalPackageId, LocalDate date, int shift, int maxQuantity,
+                                  int remainingQuantity) {
+
+    public static SlotAvailabilityDto of(SlotView slotView) {
+        return SlotAvailabilityDto.builder()
+                .slotId(slotView.getSlotId())
+                .medicalPackageId(slotView.getMedicalPackageId())
+                .date(slotView.getDate())
+                .shift(slotView.getShift())
+                .maxQuantity(slotView.getMaxQuantity())
+                .remainingQuantity(slotView.getRemainingQuantity())
+                .build();
+    }
+}
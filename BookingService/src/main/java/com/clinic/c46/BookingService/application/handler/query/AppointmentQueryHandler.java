@@ -12,7 +12,9 @@ import com.clinic.c46.BookingService.domain.view.MedicalPackageView;
 import com.clinic.c46.BookingService.infrastructure.adapter.exception.DataNotFoundRetryableException;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.AppointmentsPagedResponse;
 import com.clinic.c46.CommonService.dto.PatientDto;
+import com.clinic.c46.CommonService.helper.KeysetPageRequest;
 import com.clinic.c46.CommonService.helper.PageAndSortHelper;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SortDirection;
 import com.clinic.c46.CommonService.helper.SpecificationBuilder;
 import com.clinic.c46.CommonService.query.appointment.GetAppointmentByPatientIdAndDateQuery;
@@ -52,9 +54,6 @@ public class AppointmentQueryHandler {
     @QueryHandler
     public AppointmentsPagedResponse handle(SearchAppointmentsQuery q) {
 
-        Pageable pageable = pageAndSortHelper.buildPageable(q.getPage(), q.getSize(), q.getSortBy(),
-                SortDirection.valueOf(q.getSort()));
-
         Specification<AppointmentView> specKeyword = specificationBuilder.keyword(q.getKeyword(),
                 List.of("patientName"));
 
@@ -68,59 +67,81 @@ public class AppointmentQueryHandler {
                 .and(specState)
                 .and(specDate);
 
+        if (PaginationMode.KEYSET.equals(q.getPagination())) {
+            KeysetPageRequest keysetRequest = KeysetPageRequest.builder()
+                    .cursor(q.getCursor())
+                    .size(q.getSize())
+                    .sortField(q.getSortBy())
+                    .sortDir(SortDirection.valueOf(q.getSort()))
+                    .idField("id")
+                    .withTotal(Boolean.TRUE.equals(q.getWithTotal()))
+                    .build();
+
+            return pageAndSortHelper.findKeyset(appointmentViewRepository, finalSpec, keysetRequest,
+                    this::toAppointmentDto, AppointmentsPagedResponse::new);
+        }
+
+        Pageable pageable = pageAndSortHelper.buildPageable(q.getPage(), q.getSize(), q.getSortBy(),
+                SortDirection.valueOf(q.getSort()));
+
         Page<AppointmentView> pageResult = appointmentViewRepository.findAll(finalSpec, pageable);
 
-        return pageAndSortHelper.toPaged(pageResult, view -> {
-            MedicalPackageView medicalPackage = view.getMedicalPackage();
-
-
-            return AppointmentDto.builder()
-                    .id(view.getId())
-                    .patientId(view.getPatientId())
-                    .patientName(view.getPatientName())
-                    .shift(view.getShift())
-                    .date(view.getDate())
-                    .medicalPackageId(medicalPackage.getMedicalPackageId())
-                    .medicalPackageName(medicalPackage.getMedicalPackageName())
-                    .snapshotPrice(view.getSnapshotPrice())
-                    .snapshotPriceVersion(view.getSnapshotPriceVersion())
-                    .state(view.getState())
-                    .createdAt(view.getCreatedAt())
-                    .updatedAt(view.getUpdatedAt())
-                    .build();
+        return pageAndSortHelper.toPaged(pageResult, this::toAppointmentDto, AppointmentsPagedResponse::new);
+    }
 
-        }, AppointmentsPagedResponse::new);
+    private AppointmentDto toAppointmentDto(AppointmentView view) {
+        MedicalPackageView medicalPackage = view.getMedicalPackage();
+
+        return AppointmentDto.builder()
+                .id(view.getId())
+                .patientId(view.getPatientId())
+                .patientName(view.getPatientName())
+                .shift(view.getShift())
+                .date(view.getDate())
+                .medicalPackageId(medicalPackage.getMedicalPackageId())
+                .medicalPackageName(medicalPackage.getMedicalPackageName())
+                .snapshotPrice(view.getSnapshotPrice())
+                .snapshotPriceVersion(view.getSnapshotPriceVersion())
+                .state(view.getState())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .build();
     }
 
     @QueryHandler
     public Optional<AppointmentDetailsDto> handle(GetAppointmentByIdQuery q) {
         return appointmentViewRepository.findById(q.appointmentId())
-                .map(view -> {
-                    MedicalPackageView medicalPackage = view.getMedicalPackage();
-                    Set<ServiceDto> services = medicalPackage.getServices()
-                            .stream()
-                            .map(serviceRepView -> ServiceDto.builder()
-                                    .id(serviceRepView.getId())
-                                    .name(serviceRepView.getName())
-                                    .build())
-                            .collect(Collectors.toSet());
+                .map(AppointmentQueryHandler::toAppointmentDetailsDto);
+    }
 
-                    return AppointmentDetailsDto.builder()
-                            .id(view.getId())
-                            .patientId(view.getPatientId())
-                            .patientName(view.getPatientName())
-                            .shift(view.getShift())
-                            .date(view.getDate())
-                            .medicalPackageId(medicalPackage.getMedicalPackageId())
-                            .medicalPackageName(medicalPackage.getMedicalPackageName())
-                            .snapshotPrice(view.getSnapshotPrice())
-                            .snapshotPriceVersion(view.getSnapshotPriceVersion())
-                            .state(view.getState())
-                            .createdAt(view.getCreatedAt())
-                            .updatedAt(view.getUpdatedAt())
-                            .services(services)
-                            .build();
-                });
+    /**
+     * Dùng chung cho query handler và update mà AppointmentProjection emit cho subscription query GetAppointmentByIdQuery.
+     */
+    public static AppointmentDetailsDto toAppointmentDetailsDto(AppointmentView view) {
+        MedicalPackageView medicalPackage = view.getMedicalPackage();
+        Set<ServiceDto> services = medicalPackage.getServices()
+                .stream()
+                .map(serviceRepView -> ServiceDto.builder()
+                        .id(serviceRepView.getId())
+                        .name(serviceRepView.getName())
+                        .build())
+                .collect(Collectors.toSet());
+
+        return AppointmentDetailsDto.builder()
+                .id(view.getId())
+                .patientId(view.getPatientId())
+                .patientName(view.getPatientName())
+                .shift(view.getShift())
+                .date(view.getDate())
+                .medicalPackageId(medicalPackage.getMedicalPackageId())
+                .medicalPackageName(medicalPackage.getMedicalPackageName())
+                .snapshotPrice(view.getSnapshotPrice())
+                .snapshotPriceVersion(view.getSnapshotPriceVersion())
+                .state(view.getState())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .services(services)
+                .build();
     }
 
     @QueryHandler
@@ -1,7 +1,9 @@
 package com.clinic.c46.BookingService.application.handler.query;
 
 
+import com.clinic.c46.BookingService.application.dto.SlotAvailabilityDto;
 import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
+import com.clinic.c46.BookingService.application.service.SlotAvailabilityCache;
 import com.clinic.c46.BookingService.domain.query.ExistsBySlotIdQuery;
 import com.clinic.c46.BookingService.domain.query.ExistsSlotByDateShiftPackageQuery;
 import com.clinic.c46.BookingService.domain.query.FindSlotByIdQuery;
@@ -16,9 +18,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.queryhandling.QueryHandler;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -26,12 +32,30 @@ public class SlotQueryHandler extends BaseQueryHandler {
 
     private final SlotViewRepository slotRepository;
     private final PageAndSortHelper pageAndSortHelper;
+    private final SlotAvailabilityCache slotAvailabilityCache;
 
     @QueryHandler
     public SlotsPagedResponse handle(GetAllSlotOfPackageQuery query) {
 
         Pageable pageable = pageAndSortHelper.buildPageable(1, 50, "date", SortDirection.ASC);
 
+        Optional<List<SlotAvailabilityDto>> cached = slotAvailabilityCache.findByMedicalPackageAndDateRange(
+                query.medicalPackageId(), query.dateFrom(), query.dateTo());
+        if (cached.isPresent()) {
+            List<SlotAvailabilityDto> slots = cached.get();
+            Page<SlotAvailabilityDto> slotPage = new PageImpl<>(
+                    slots.subList(0, Math.min(pageable.getPageSize(), slots.size())), pageable, slots.size());
+
+            return pageAndSortHelper.toPaged(slotPage, slot -> SlotResponse.builder()
+                    .slotId(slot.slotId())
+                    .medicalPackageId(slot.medicalPackageId())
+                    .shift(slot.shift())
+                    .maxQuantity(slot.maxQuantity())
+                    .remainingQuantity(slot.remainingQuantity())
+                    .date(slot.date())
+                    .build(), SlotsPagedResponse::new);
+        }
+
         Page<SlotView> slotPage = slotRepository.findAllByMedicalPackageIdAndDateBetween(query.medicalPackageId(), query.dateFrom(), query.dateTo(), pageable);
 
         return pageAndSortHelper.toPaged(slotPage, entity -> SlotResponse.builder()
@@ -1,12 +1,14 @@
 package com.clinic.c46.BookingService.application.listener;
 
 
+import com.clinic.c46.BookingService.application.handler.query.AppointmentQueryHandler;
 import com.clinic.c46.BookingService.application.repository.AppointmentViewRepository;
 import com.clinic.c46.BookingService.application.repository.MedicalPackageViewRepository;
 import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
 import com.clinic.c46.BookingService.domain.enums.AppointmentState;
 import com.clinic.c46.BookingService.domain.event.AppointmentCreatedEvent;
 import com.clinic.c46.BookingService.domain.event.AppointmentStateUpdatedEvent;
+import com.clinic.c46.BookingService.domain.query.GetAppointmentByIdQuery;
 import com.clinic.c46.BookingService.domain.view.AppointmentView;
 import com.clinic.c46.BookingService.domain.view.MedicalPackageView;
 import com.clinic.c46.BookingService.domain.view.SlotView;
@@ -16,9 +18,11 @@ import com.clinic.c46.CommonService.event.patient.PatientCreatedEvent;
 import com.clinic.c46.CommonService.query.patient.GetPatientOptByIdQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
+import org.axonframework.queryhandling.QueryUpdateEmitter;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Recover;
 import org.springframework.retry.annotation.Retryable;
@@ -28,6 +32,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Service
+@ProcessingGroup("appointment-projection")
 @RequiredArgsConstructor
 @Slf4j
 public class AppointmentProjection {
@@ -36,6 +41,7 @@ public class AppointmentProjection {
     private final SlotViewRepository slotViewRepository;
     private final MedicalPackageViewRepository medicalPackageViewRepository;
     private final QueryGateway queryGateway;
+    private final QueryUpdateEmitter queryUpdateEmitter;
 
     @EventHandler
     @Retryable(retryFor = DataNotFoundRetryableException.class, maxAttempts = 5,
@@ -73,10 +79,18 @@ public class AppointmentProjection {
                 .build();
 
         appointmentRepository.save(view);
+        emitAppointmentProjected(view);
 
         log.debug("AppointmentView saved for appointmentId={}", event.appointmentId());
     }
 
+    // báo cho subscription query đang chờ view này (ProjectionAwaiter của BookingProcessingSaga);
+    // emit trong unit of work nên chỉ được gửi đi sau khi transaction lưu view commit
+    private void emitAppointmentProjected(AppointmentView view) {
+        queryUpdateEmitter.emit(GetAppointmentByIdQuery.class, query -> view.getId()
+                .equals(query.appointmentId()), AppointmentQueryHandler.toAppointmentDetailsDto(view));
+    }
+
     private PatientDto fetchPatientWithRetry(String patientId) {
         try {
             PatientDto patientDto = queryGateway.query(GetPatientOptByIdQuery.builder()
@@ -128,6 +142,7 @@ public class AppointmentProjection {
                 .build();
 
         appointmentRepository.save(view);
+        emitAppointmentProjected(view);
 
         log.warn("AppointmentView saved with placeholder patient details for appointmentId={}. " +
                 "Will need to be updated when patient becomes available.", event.appointmentId());
@@ -4,10 +4,12 @@ import com.clinic.c46.BookingService.application.repository.BookingStatusViewRep
 import com.clinic.c46.BookingService.domain.event.BookingCompletedEvent;
 import com.clinic.c46.BookingService.domain.event.BookingRejectedEvent;
 import com.clinic.c46.BookingService.domain.event.SlotLockedEvent;
+import com.clinic.c46.BookingService.domain.query.GetBookingStatusByIdQuery;
 import com.clinic.c46.BookingService.domain.view.BookingStatusView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.queryhandling.QueryUpdateEmitter;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -16,12 +18,14 @@ import org.springframework.stereotype.Service;
 public class BookingStatusProjection {
 
     private final BookingStatusViewRepository repository;
+    private final QueryUpdateEmitter queryUpdateEmitter;
 
     // Bắt đầu: SlotLockedEvent → tạo bản ghi PENDING
     @EventHandler
     public void on(SlotLockedEvent event) {
         BookingStatusView status = new BookingStatusView(event.bookingId());
         repository.save(status);
+        emitStatusChanged(status);
     }
 
     @EventHandler
@@ -30,6 +34,7 @@ public class BookingStatusProjection {
                 .ifPresent(booking -> {
                     booking.approve(event.appointmentId());
                     repository.save(booking);
+                    emitStatusChanged(booking);
                 });
     }
 
@@ -50,7 +55,14 @@ public class BookingStatusProjection {
                 .ifPresent(booking -> {
                     booking.reject(message);
                     repository.save(booking);
+                    emitStatusChanged(booking);
                 });
     }
 
+    // Đẩy trạng thái mới cho các client đang theo dõi qua /booking/{bookingId}/status/stream (sau khi transaction commit)
+    private void emitStatusChanged(BookingStatusView status) {
+        queryUpdateEmitter.emit(GetBookingStatusByIdQuery.class, query -> status.getBookingId()
+                .equals(query.bookingId()), status);
+    }
+
 }
@@ -1,7 +1,9 @@
 package com.clinic.c46.BookingService.application.listener;
 
 
+import com.clinic.c46.BookingService.application.dto.SlotAvailabilityDto;
 import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
+import com.clinic.c46.BookingService.application.service.SlotAvailabilityCache;
 import com.clinic.c46.BookingService.domain.event.LockedSlotReleasedEvent;
 import com.clinic.c46.BookingService.domain.event.SlotCreatedEvent;
 import com.clinic.c46.BookingService.domain.event.SlotLockedEvent;
@@ -9,15 +11,29 @@ import com.clinic.c46.BookingService.domain.event.SlotMaxQuantityUpdatedEvent;
 import com.clinic.c46.BookingService.domain.view.SlotView;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
+@ProcessingGroup("slot-projection")
 @RequiredArgsConstructor
 @Slf4j
 public class SlotProjection {
 
+    private static final String PENDING_DELTAS = SlotProjection.class.getName() + ".pendingDeltas";
+    private static final String PENDING_AVAILABILITY = SlotProjection.class.getName() + ".pendingAvailability";
+
     private final SlotViewRepository slotRepository;
+    private final SlotAvailabilityCache slotAvailabilityCache;
 
 
     @EventHandler
@@ -27,46 +43,99 @@ public class SlotProjection {
 
         log.info("===========   Slot Projection: slot {} created    ===========", slotView.getSlotId());
         slotRepository.save(slotView);
+        updateAvailability(slotView);
     }
 
     @EventHandler
     public void on(SlotLockedEvent event) {
-
-
-        SlotView slotView = slotRepository.findById(event.slotId())
-                .orElse(null);
-
-        if (slotView == null) throw new IllegalStateException("Slot not found");
-        slotView.lock();
-
-        log.info("===========   Slot Projection: slot {} locked    ===========", slotView.getSlotId());
-        slotRepository.save(slotView);
+        log.info("===========   Slot Projection: slot {} locked    ===========", event.slotId());
+        addRemainingQuantity(event.slotId(), -1);
     }
 
     @EventHandler
     public void on(LockedSlotReleasedEvent event) {
-        SlotView slotView = slotRepository.findById(event.slotId())
-                .orElse(null);
-
-        if (slotView == null) throw new IllegalStateException("Slot not found");
-        slotView.lock();
-
-        log.info("===========   Slot Projection: slot {} released ===========", slotView.getSlotId());
-        slotRepository.save(slotView);
+        log.info("===========   Slot Projection: slot {} released ===========", event.slotId());
+        addRemainingQuantity(event.slotId(), 1);
     }
 
     @EventHandler
     public void on(SlotMaxQuantityUpdatedEvent event) {
-        SlotView slotView = slotRepository.findById(event.slotId())
-                .orElseThrow(() -> new IllegalStateException("Slot not found: " + event.slotId()));
-
         // Update max quantity and adjust remaining quantity
         int difference = event.newMaxQuantity() - event.oldMaxQuantity();
-        slotView.updateMaxQuantity(event.newMaxQuantity(), difference);
+        if (slotRepository.updateMaxQuantity(event.slotId(), event.newMaxQuantity(), difference,
+                LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Slot not found: " + event.slotId());
+        }
 
         log.info("===========   Slot Projection: slot {} max quantity updated from {} to {} ===========",
-                slotView.getSlotId(), event.oldMaxQuantity(), event.newMaxQuantity());
-        slotRepository.save(slotView);
+                event.slotId(), event.oldMaxQuantity(), event.newMaxQuantity());
+        // delta 0: không đổi remaining, chỉ để đọc lại slot cho cache cùng lượt với các slot khác
+        addRemainingQuantity(event.slotId(), 0);
+    }
+
+    /**
+     * Gom thay đổi remaining_quantity theo slot trong cả batch của processor (slot-projection.batchSize),
+     * ghi một câu UPDATE có điều kiện cho mỗi slot trước khi batch commit thay vì findById + save cho từng event.
+     */
+    private void addRemainingQuantity(String slotId, int delta) {
+        if (!CurrentUnitOfWork.isStarted()) {
+            flushRemainingQuantity(Map.of(slotId, List.of(delta)));
+            return;
+        }
+        UnitOfWork<?> unitOfWork = CurrentUnitOfWork.get()
+                .root();
+        Map<String, List<Integer>> pending = unitOfWork.getOrComputeResource(PENDING_DELTAS, key -> {
+            Map<String, List<Integer>> deltas = new LinkedHashMap<>();
+            unitOfWork.onPrepareCommit(uow -> flushRemainingQuantity(deltas));
+            return deltas;
+        });
+        pending.computeIfAbsent(slotId, id -> new ArrayList<>())
+                .add(delta);
+    }
+
+    private void flushRemainingQuantity(Map<String, List<Integer>> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        deltas.forEach((slotId, slotDeltas) -> {
+            int netDelta = slotDeltas.stream()
+                    .mapToInt(Integer::intValue)
+                    .sum();
+            // lock rồi release trong cùng batch: không cần ghi
+            if (netDelta == 0) return;
+            if (slotRepository.addRemainingQuantity(slotId, netDelta, now) == 0) {
+                // tổng cả batch nằm ngoài [0, max_quantity]: áp dụng lần lượt từng event như khi không gom,
+                // chỉ event nào tự nó làm vượt giới hạn mới bị bỏ
+                slotDeltas.forEach(delta -> applyRemainingQuantity(slotId, delta, now));
+            }
+        });
+
+        // Đọc lại giá trị sau UPDATE (một câu cho cả batch) để cache giữ đúng số đã ghi xuống bảng slot
+        slotRepository.findAllById(deltas.keySet())
+                .forEach(this::updateAvailability);
+    }
+
+    private void applyRemainingQuantity(String slotId, int delta, LocalDateTime now) {
+        if (delta != 0 && slotRepository.addRemainingQuantity(slotId, delta, now) == 0) {
+            log.error("Slot {} not found or remaining quantity out of range, skipped delta {}", slotId, delta);
+        }
+    }
+
+    // Cập nhật cache lịch đặt khám sau khi batch của processor commit, rollback thì cache không bị ghi.
+    // Chỉ giữ bản mới nhất của mỗi slot: callback afterCommit chạy ngược thứ tự đăng ký nên không đăng ký theo từng event
+    private void updateAvailability(SlotView slotView) {
+        SlotAvailabilityDto slot = SlotAvailabilityDto.of(slotView);
+        if (!CurrentUnitOfWork.isStarted()) {
+            slotAvailabilityCache.update(slot);
+            return;
+        }
+        UnitOfWork<?> unitOfWork = CurrentUnitOfWork.get()
+                .root();
+        Map<String, SlotAvailabilityDto> pending = unitOfWork.getOrComputeResource(PENDING_AVAILABILITY, key -> {
+            Map<String, SlotAvailabilityDto> slots = new LinkedHashMap<>();
+            unitOfWork.afterCommit(uow -> slots.values()
+                    .forEach(slotAvailabilityCache::update));
+            return slots;
+        });
+        pending.put(slot.slotId(), slot);
     }
 
 
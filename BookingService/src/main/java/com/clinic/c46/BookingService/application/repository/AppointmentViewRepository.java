@@ -1,8 +1,11 @@
 package com.clinic.c46.BookingService.application.repository;
 
 import com.clinic.c46.BookingService.domain.view.AppointmentView;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -11,4 +14,10 @@ public interface AppointmentViewRepository extends JpaRepository<AppointmentView
     List<AppointmentView> findByDateAndState(LocalDate date, String state);
     List<AppointmentView> findByDateAndStateAndIsRemindedFalse(LocalDate date, String state);
     List<AppointmentView> findAllByPatientIdAndPatientName(String patientId, String patientName);
+
+    // Trang id (keyset theo id) của lịch hẹn cần nhắc, chỉ đọc cột id
+    @Query("SELECT a.id FROM AppointmentView a WHERE a.date = :date AND a.state = :state AND a.isReminded = false "
+            + "AND a.id > :afterId ORDER BY a.id")
+    List<String> findIdsToRemind(@Param("date") LocalDate date, @Param("state") String state,
+            @Param("afterId") String afterId, Pageable pageable);
 }
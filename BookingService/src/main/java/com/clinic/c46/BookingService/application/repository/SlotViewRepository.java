@@ -4,8 +4,12 @@ import com.clinic.c46.BookingService.domain.view.SlotView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface SlotViewRepository extends JpaRepository<SlotView, String> {
@@ -17,8 +21,35 @@ public interface SlotViewRepository extends JpaRepository<SlotView, String> {
     Page<SlotView> findAllByMedicalPackageId(String medicalPackageId, Pageable pageable);
 
     Page<SlotView> findAllByMedicalPackageIdAndDateBetween(String medicalPackageId, LocalDate dateFrom, LocalDate dateTo, Pageable pageable);
+
+    List<SlotView> findAllByMedicalPackageIdAndDateBetween(String medicalPackageId, LocalDate dateFrom, LocalDate dateTo);
+
+    // Cộng delta vào remaining_quantity trong một câu lệnh, chỉ khi kết quả vẫn nằm trong [0, max_quantity]
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE SlotView s SET s.remainingQuantity = s.remainingQuantity + :delta, s.updatedAt = :updatedAt "
+            + "WHERE s.slotId = :slotId AND s.remainingQuantity + :delta BETWEEN 0 AND s.maxQuantity")
+    int addRemainingQuantity(@Param("slotId") String slotId, @Param("delta") int delta,
+            @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE SlotView s SET s.maxQuantity = :maxQuantity, "
+            + "s.remainingQuantity = s.remainingQuantity + :difference, s.updatedAt = :updatedAt WHERE s.slotId = :slotId")
+    int updateMaxQuantity(@Param("slotId") String slotId, @Param("maxQuantity") int maxQuantity,
+            @Param("difference") int difference, @Param("updatedAt") LocalDateTime updatedAt);
     
     boolean existsByDateAndShiftAndMedicalPackageId(LocalDate date, int shift, String medicalPackageId);
 
+    @Query("SELECT s.date AS date, s.shift AS shift, s.medicalPackageId AS medicalPackageId FROM SlotView s "
+            + "WHERE s.date >= :fromDate AND s.date < :toDate")
+    List<SlotKey> findAllKeysByDateRange(@Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+
+    interface SlotKey {
+        LocalDate getDate();
+
+        int getShift();
+
+        String getMedicalPackageId();
+    }
+
 }
 
@@ -1,10 +1,12 @@
 package com.clinic.c46.BookingService.application.saga.BookingProcessing;
 
 
+import com.clinic.c46.BookingService.application.dto.AppointmentDetailsDto;
 import com.clinic.c46.BookingService.domain.command.CreateAppointmentCommand;
 import com.clinic.c46.BookingService.domain.command.ReleaseFingerprintCommand;
 import com.clinic.c46.BookingService.domain.command.ReleaseLockedSlotCommand;
 import com.clinic.c46.BookingService.domain.event.*;
+import com.clinic.c46.BookingService.domain.query.GetAppointmentByIdQuery;
 import com.clinic.c46.CommonService.command.auth.VerifyEmailCommand;
 import com.clinic.c46.CommonService.command.notification.SendAppointmentInfoCommand;
 import com.clinic.c46.CommonService.command.patient.CreatePatientCommand;
@@ -13,6 +15,7 @@ import com.clinic.c46.CommonService.command.patient.PatientCreationFailedEvent;
 import com.clinic.c46.CommonService.event.auth.EmailVerificationFailedEvent;
 import com.clinic.c46.CommonService.event.auth.EmailVerifiedEvent;
 import com.clinic.c46.CommonService.event.patient.PatientCreatedEvent;
+import com.clinic.c46.CommonService.helper.ProjectionAwaiter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.Getter;
@@ -32,7 +35,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.Duration;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @Saga
 @Slf4j
@@ -47,6 +49,8 @@ public class BookingProcessingSaga {
     private static final String RETRY_CREATE_APPOINTMENT = "retry-create-appointment";
     private final Duration BOOKING_TIMEOUT = Duration.ofMinutes(10);
     private final long SCHEDULE_RETRY = 500L;
+    // AppointmentProjection retry tối đa ~25s khi chưa có patient, chờ lâu hơn thế một chút
+    private static final Duration APPOINTMENT_PROJECTION_TIMEOUT = Duration.ofSeconds(30);
     @Autowired
     @JsonIgnore
     private transient CommandGateway commandGateway;
@@ -56,6 +60,9 @@ public class BookingProcessingSaga {
     @Autowired
     @JsonIgnore
     private transient DeadlineManager deadlineManager;
+    @Autowired
+    @JsonIgnore
+    private transient ProjectionAwaiter projectionAwaiter;
     private int retryCountPatient = 0;
     private int retryCountAppointment = 0;
 
@@ -156,32 +163,33 @@ public class BookingProcessingSaga {
         this.stateMachine = BookingProcessingStateMachine.PENDING_RELEASE_SLOT_LOCKED;
         SagaLifecycle.associateWith("fingerprint", this.fingerprint);
 
+        String appointmentId = this.appointmentId;
+
         // Send ReleaseFingerprintCommand asynchronously
         this.commandGateway.send(ReleaseFingerprintCommand.builder()
                         .slotId(this.slotId)
                         .fingerprint(this.fingerprint)
                         .build())
-                .thenCompose(result -> {
-                    // Wait a bit to ensure appointment is saved before sending notification
-                    return CompletableFuture.runAsync(() -> {
-                        try {
-                            Thread.sleep(2000); // Wait 2 seconds for event processing
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }).thenCompose(v -> {
-                        // After releasing fingerprint and delay, send appointment email notification
-                        String notificationId = UUID.randomUUID()
-                                .toString();
-                        return this.commandGateway.send(SendAppointmentInfoCommand.builder()
-                                .notificationId(notificationId)
-                                .appointmentId(this.appointmentId)
-                                .build());
-                    });
+                // Chờ AppointmentView được projection lưu rồi mới gửi email (NotificationService đọc view này)
+                .thenCompose(result -> this.projectionAwaiter.await(new GetAppointmentByIdQuery(appointmentId),
+                                AppointmentDetailsDto.class, APPOINTMENT_PROJECTION_TIMEOUT)
+                        .exceptionally(ex -> {
+                            // Hết thời gian chờ: vẫn gửi, NotificationService tự retry khi chưa thấy appointment
+                            log.warn("AppointmentView not projected in time for appointmentId: {}", appointmentId,
+                                    ex);
+                            return null;
+                        }))
+                .thenCompose(view -> {
+                    String notificationId = UUID.randomUUID()
+                            .toString();
+                    return this.commandGateway.send(SendAppointmentInfoCommand.builder()
+                            .notificationId(notificationId)
+                            .appointmentId(appointmentId)
+                            .build());
                 })
                 .exceptionally(ex -> {
-                    log.error("Failed to send appointment notification email for appointmentId: {}", this.appointmentId,
-                            ex.getMessage());
+                    log.error("Failed to send appointment notification email for appointmentId: {}", appointmentId,
+                            ex);
                     return null;
                 });
 
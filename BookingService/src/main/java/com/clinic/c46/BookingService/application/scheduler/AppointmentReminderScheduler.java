@@ -1,27 +1,66 @@
 package com.clinic.c46.BookingService.application.scheduler;
 
 import com.clinic.c46.BookingService.application.repository.AppointmentViewRepository;
+import com.clinic.c46.BookingService.domain.command.MarkAppointmentAsRemindedCommand;
 import com.clinic.c46.BookingService.domain.enums.AppointmentState;
-import com.clinic.c46.BookingService.domain.view.AppointmentView;
 import com.clinic.c46.CommonService.command.notification.RemindAppointmentCommand;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class AppointmentReminderScheduler {
 
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 2000;
+
     private final AppointmentViewRepository appointmentViewRepository;
     private final CommandGateway commandGateway;
 
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Timer runTimer;
+    private final Timer pageTimer;
+    private final Timer reminderTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Value("${appointment.reminder.page-size:200}")
+    private int pageSize;
+
+    @Value("${appointment.reminder.max-in-flight:32}")
+    private int maxInFlight;
+
+    public AppointmentReminderScheduler(AppointmentViewRepository appointmentViewRepository,
+            CommandGateway commandGateway, MeterRegistry meterRegistry) {
+        this.appointmentViewRepository = appointmentViewRepository;
+        this.commandGateway = commandGateway;
+
+        this.sentCounter = meterRegistry.counter("appointment.reminder.appointments", "result", "sent");
+        this.failedCounter = meterRegistry.counter("appointment.reminder.appointments", "result", "failed");
+        this.runTimer = meterRegistry.timer("appointment.reminder.run");
+        this.pageTimer = meterRegistry.timer("appointment.reminder.page");
+        this.reminderTimer = meterRegistry.timer("appointment.reminder.dispatch");
+        meterRegistry.gauge("appointment.reminder.in-flight", inFlight);
+    }
+
     /**
      * Runs on a configurable schedule (default: every hour)
      * Finds appointments scheduled 24 hours from now and sends reminder emails
@@ -29,64 +68,146 @@ public class AppointmentReminderScheduler {
     @Scheduled(cron = "${appointment.reminder.cron:0 0 * * * *}")
     public void sendAppointmentReminders() {
         log.info("Running appointment reminder scheduler");
-        
+
         // Calculate the date 24 hours from now (tomorrow at this time)
-        LocalDate reminderDate = LocalDate.now().plusDays(1);
-        
-        // Find all appointments in CREATED state for tomorrow that haven't been reminded
-        List<AppointmentView> appointments = appointmentViewRepository.findByDateAndStateAndIsRemindedFalse(
-                reminderDate, 
-                AppointmentState.CREATED.name()
-        );
-        
-        log.info("Found {} appointments scheduled for {} that need reminders", 
-                appointments.size(), reminderDate);
-        
-        // Send reminder command for each appointment with proper async error handling
-        appointments.forEach(appointment -> 
-            sendReminderWithRetry(appointment.getId())
-        );
+        LocalDate reminderDate = LocalDate.now()
+                .plusDays(1);
+
+        int reminded = runTimer.record(() -> sendRemindersForDate(reminderDate));
+        log.info("Sent {} appointment reminders for {}", reminded, reminderDate);
+    }
+
+    /**
+     * Sends reminders for CREATED appointments on {@code date} that haven't been reminded.
+     * <p>
+     * Appointment ids are read page by page (keyset on id, {@code appointment.reminder.page-size}), reminders are
+     * sent concurrently with at most {@code appointment.reminder.max-in-flight} appointments in progress.
+     * Each successful reminder is followed by MarkAppointmentAsRemindedCommand; AppointmentProjection then sets
+     * is_reminded, so a later run only re-reads appointments whose reminder or mark command did not go through.
+     *
+     * @return Number of reminders sent
+     */
+    public int sendRemindersForDate(LocalDate date) {
+        Semaphore window = new Semaphore(maxInFlight);
+        int reminded = 0;
+        String afterId = "";
+
+        while (true) {
+            List<String> appointmentIds = appointmentViewRepository.findIdsToRemind(date,
+                    AppointmentState.CREATED.name(), afterId, PageRequest.of(0, pageSize));
+            if (appointmentIds.isEmpty()) {
+                break;
+            }
+
+            reminded += pageTimer.record(() -> remindPage(appointmentIds, window));
+
+            // lần gửi lỗi không được đánh dấu, is_reminded do projection ghi sau,
+            // nên dùng con trỏ để không đọc lại chúng trong cùng lượt chạy
+            afterId = appointmentIds.get(appointmentIds.size() - 1);
+            if (appointmentIds.size() < pageSize) {
+                break;
+            }
+        }
+        return reminded;
+    }
+
+    private int remindPage(List<String> appointmentIds, Semaphore window) {
+        AtomicInteger reminded = new AtomicInteger();
+        dispatch(appointmentIds, window, appointmentId -> {
+            Timer.Sample sample = Timer.start();
+            return remind(appointmentId).handle((result, ex) -> {
+                        sample.stop(reminderTimer);
+                        if (ex != null) {
+                            failedCounter.increment();
+                            log.error("All retry attempts exhausted for appointment reminder: {}. "
+                                    + "Will retry on next run.", appointmentId, ex);
+                            return false;
+                        }
+                        sentCounter.increment();
+                        reminded.incrementAndGet();
+                        return true;
+                    })
+                    .thenCompose(sent -> sent ? markReminded(appointmentId)
+                            : CompletableFuture.<Void>completedFuture(null));
+        });
+        return reminded.get();
     }
 
     /**
-     * Sends reminder command with retry mechanism
-     * Uses Spring Retry to automatically retry on failure
+     * is_reminded của view chỉ do AppointmentProjection ghi khi nhận AppointmentRemindedEvent,
+     * nên view và aggregate luôn khớp nhau
      */
-    @org.springframework.retry.annotation.Retryable(
-            maxAttempts = 3,
-            backoff = @org.springframework.retry.annotation.Backoff(delay = 2000, multiplier = 2),
-            retryFor = {Exception.class}
-    )
-    public void sendReminderWithRetry(String appointmentId) {
+    private CompletableFuture<Void> markReminded(String appointmentId) {
+        return commandGateway.send(MarkAppointmentAsRemindedCommand.builder()
+                        .appointmentId(appointmentId)
+                        .build())
+                .<Void>thenApply(result -> null)
+                .exceptionally(ex -> {
+                    log.warn("Failed to mark appointment {} as reminded, it will be reminded again on the next run",
+                            appointmentId, ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Starts one task per appointment, never more than the window allows at once, and waits for all of them
+     */
+    private void dispatch(List<String> appointmentIds, Semaphore window,
+            Function<String, CompletableFuture<?>> task) {
+        List<CompletableFuture<?>> results = new ArrayList<>(appointmentIds.size());
+        for (String appointmentId : appointmentIds) {
+            acquire(window);
+            inFlight.incrementAndGet();
+            results.add(task.apply(appointmentId)
+                    .whenComplete((result, ex) -> {
+                        inFlight.decrementAndGet();
+                        window.release();
+                    }));
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .join();
+    }
+
+    /**
+     * Sends RemindAppointmentCommand, retrying with exponential backoff on failure (same notificationId every attempt)
+     */
+    private CompletableFuture<Void> remind(String appointmentId) {
         RemindAppointmentCommand command = RemindAppointmentCommand.builder()
-                .notificationId(UUID.randomUUID().toString())
+                .notificationId(UUID.randomUUID()
+                        .toString())
                 .appointmentId(appointmentId)
                 .build();
-        
-        commandGateway.send(command)
-                .thenCompose(result -> {
-                    log.info("Successfully sent reminder command for appointment: {}", appointmentId);
-                    // Mark appointment as reminded
-                    return commandGateway.send(com.clinic.c46.BookingService.domain.command.MarkAppointmentAsRemindedCommand.builder()
-                            .appointmentId(appointmentId)
-                            .build());
-                })
-                .thenAccept(result -> log.info("Successfully marked appointment as reminded: {}", appointmentId))
-                .exceptionally(ex -> {
-                    log.error("Failed to send reminder for appointment: {} after retries", appointmentId, ex);
-                    // Rethrow to trigger Spring Retry
-                    throw new RuntimeException("Failed to send reminder command", ex);
+
+        return sendWithRetry(command, 1, INITIAL_BACKOFF_MS);
+    }
+
+    private CompletableFuture<Void> sendWithRetry(RemindAppointmentCommand command, int attempt, long backoffMs) {
+        return commandGateway.send(command)
+                .<CompletableFuture<Void>>handle((result, ex) -> {
+                    if (ex == null) {
+                        log.trace("Successfully sent reminder command for appointment: {}", command.appointmentId());
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        return CompletableFuture.failedFuture(ex);
+                    }
+
+                    log.warn("Failed to send reminder for appointment {} (attempt {}/{}), retrying in {} ms",
+                            command.appointmentId(), attempt, MAX_ATTEMPTS, backoffMs);
+                    Executor delayed = CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> null, delayed)
+                            .thenCompose(ignored -> sendWithRetry(command, attempt + 1, backoffMs * 2));
                 })
-                .join(); // Wait for completion to ensure retry works properly
+                .thenCompose(future -> future);
     }
 
-    /**
-     * Recovery method called when all retry attempts are exhausted
-     */
-    @org.springframework.retry.annotation.Recover
-    public void recoverFromSendFailure(Exception e, String appointmentId) {
-        log.error("All retry attempts exhausted for appointment: {}. Manual intervention required.", 
-                appointmentId, e);
-        // TODO: Consider storing failed appointments in a separate table for manual retry
+    private static void acquire(Semaphore window) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new IllegalStateException("Interrupted while waiting to dispatch appointment reminders", e);
+        }
     }
 }
@@ -3,39 +3,74 @@ package com.clinic.c46.BookingService.application.scheduler;
 import com.clinic.c46.BookingService.application.repository.MedicalPackageViewRepository;
 import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
 import com.clinic.c46.BookingService.domain.command.CreateSlotCommand;
+import com.clinic.c46.BookingService.domain.valueObject.SlotId;
 import com.clinic.c46.BookingService.domain.view.MedicalPackageView;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class CreateSlotScheduler {
 
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 1000;
+
     private final SlotViewRepository slotViewRepository;
     private final MedicalPackageViewRepository medicalPackageViewRepository;
     private final CommandGateway commandGateway;
 
+    private final Counter createdCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Timer startupTimer;
+    private final Timer dailyTimer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+
     @Value("${slot.creation.weeks-ahead:4}")
     private int weeksAhead;
 
     @Value("${slot.creation.default-max-quantity:50}")
     private int defaultMaxQuantity;
 
+    @Value("${slot.creation.max-in-flight:32}")
+    private int maxInFlight;
+
+    public CreateSlotScheduler(SlotViewRepository slotViewRepository,
+            MedicalPackageViewRepository medicalPackageViewRepository, CommandGateway commandGateway,
+            MeterRegistry meterRegistry) {
+        this.slotViewRepository = slotViewRepository;
+        this.medicalPackageViewRepository = medicalPackageViewRepository;
+        this.commandGateway = commandGateway;
+
+        this.createdCounter = meterRegistry.counter("slot.creation.slots", "result", "created");
+        this.skippedCounter = meterRegistry.counter("slot.creation.slots", "result", "skipped");
+        this.failedCounter = meterRegistry.counter("slot.creation.slots", "result", "failed");
+        this.startupTimer = meterRegistry.timer("slot.creation.run", "trigger", "startup");
+        this.dailyTimer = meterRegistry.timer("slot.creation.run", "trigger", "daily");
+        meterRegistry.gauge("slot.creation.in-flight", inFlight);
+        meterRegistry.gauge("slot.creation.pending", pending);
+    }
+
     /**
      * Runs once when application starts
      * Creates slots for the next X weeks
@@ -43,7 +78,7 @@ public class CreateSlotScheduler {
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
         log.info("Application ready - initializing slots for the next {} weeks", weeksAhead);
-        createSlotsForInitialPeriod();
+        startupTimer.record(this::createSlotsForInitialPeriod);
     }
 
     /**
@@ -53,120 +88,165 @@ public class CreateSlotScheduler {
     @Scheduled(cron = "${slot.creation.cron:0 0 0 * * *}")
     public void createDailySlots() {
         log.info("Running daily slot creation scheduler");
-        
+
         // Calculate the date X weeks from now
         LocalDate targetDate = LocalDate.now().plusWeeks(weeksAhead);
-        
+
         log.info("Creating slots for date: {}", targetDate);
-        createSlotsForDate(targetDate);
+        dailyTimer.record(() -> createSlotsForDate(targetDate));
     }
 
     /**
      * Creates slots for the initial period (X weeks from now)
      * Called once when application starts
      */
-    @Transactional
     public void createSlotsForInitialPeriod() {
         LocalDate startDate = LocalDate.now();
         LocalDate endDate = startDate.plusWeeks(weeksAhead);
-        
+
         log.info("Creating initial slots from {} to {}", startDate, endDate);
-        
-        int totalSlotsCreated = 0;
-        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
-            int slotsCreated = createSlotsForDate(date);
-            totalSlotsCreated += slotsCreated;
-        }
-        
+        int totalSlotsCreated = createSlotsForRange(startDate, endDate);
         log.info("Initial slot creation completed. Total slots created: {}", totalSlotsCreated);
     }
 
     /**
      * Creates slots for a specific date
-     * Creates 2 shifts (morning and afternoon) for each medical package
-     * 
+     *
      * @param date The date to create slots for
      * @return Number of slots created
      */
-    @Transactional
     public int createSlotsForDate(LocalDate date) {
+        return createSlotsForRange(date, date.plusDays(1));
+    }
+
+    /**
+     * Creates 2 shifts (morning and afternoon) for each medical package on every date in [startDate, endDate).
+     * <p>
+     * Existing slots of the whole range are loaded with one query, CreateSlotCommands are then sent
+     * concurrently with at most {@code slot.creation.max-in-flight} commands waiting for a result.
+     *
+     * @return Number of slots created
+     */
+    public int createSlotsForRange(LocalDate startDate, LocalDate endDate) {
         // Get all active medical packages
         List<MedicalPackageView> medicalPackages = medicalPackageViewRepository.findAll();
-        
+
         if (medicalPackages.isEmpty()) {
-            log.warn("No medical packages found. Skipping slot creation for date: {}", date);
+            log.warn("No medical packages found. Skipping slot creation from {} to {}", startDate, endDate);
             return 0;
         }
-        
-        int slotsCreated = 0;
-        
-        for (MedicalPackageView medicalPackage : medicalPackages) {
-            // Create slots for both shifts (0 = morning, 1 = afternoon)
-            for (int shift = 0; shift <= 1; shift++) {
-                // Check if slot already exists
-                if (slotViewRepository.existsByDateAndShiftAndMedicalPackageId(
-                        date, shift, medicalPackage.getMedicalPackageId())) {
-                    log.debug("Slot already exists for date: {}, shift: {}, package: {}. Skipping.",
-                            date, shift, medicalPackage.getMedicalPackageName());
-                    continue;
-                }
-                
-                // Create slot with retry mechanism
-                try {
-                    createSlotWithRetry(date, shift, medicalPackage.getMedicalPackageId());
-                    slotsCreated++;
-                    log.debug("Created slot for date: {}, shift: {}, package: {}",
-                            date, shift, medicalPackage.getMedicalPackageName());
-                } catch (Exception e) {
-                    log.error("Failed to create slot for date: {}, shift: {}, package: {}",
-                            date, shift, medicalPackage.getMedicalPackageName(), e);
+
+        Set<String> existingSlots = slotViewRepository.findAllKeysByDateRange(startDate, endDate)
+                .stream()
+                .map(key -> slotKey(key.getDate(), key.getShift(), key.getMedicalPackageId()))
+                .collect(Collectors.toSet());
+
+        List<MissingSlot> missingSlots = new ArrayList<>();
+        for (LocalDate date = startDate; date.isBefore(endDate); date = date.plusDays(1)) {
+            for (MedicalPackageView medicalPackage : medicalPackages) {
+                // Create slots for both shifts (0 = morning, 1 = afternoon)
+                for (int shift = 0; shift <= 1; shift++) {
+                    if (existingSlots.contains(slotKey(date, shift, medicalPackage.getMedicalPackageId()))) {
+                        skippedCounter.increment();
+                    } else {
+                        missingSlots.add(new MissingSlot(date, shift, medicalPackage));
+                    }
                 }
             }
         }
-        
-        log.info("Created {} slots for date: {}", slotsCreated, date);
-        return slotsCreated;
+
+        // pending = số slot còn thiếu của lượt chạy này, giảm dần khi từng lệnh có kết quả
+        pending.set(missingSlots.size());
+        Semaphore window = new Semaphore(maxInFlight);
+        AtomicInteger slotsCreated = new AtomicInteger();
+        List<CompletableFuture<Void>> results = new ArrayList<>(missingSlots.size());
+
+        for (MissingSlot slot : missingSlots) {
+            acquire(window);
+            inFlight.incrementAndGet();
+
+            results.add(createSlot(slot.date(), slot.shift(), slot.medicalPackage()
+                    .getMedicalPackageId()).handle((created, ex) -> {
+                inFlight.decrementAndGet();
+                pending.decrementAndGet();
+                window.release();
+
+                if (ex != null) {
+                    failedCounter.increment();
+                    log.error("All retry attempts exhausted for slot creation. Date: {}, Shift: {}, "
+                                    + "Package: {}. Manual intervention required.", slot.date(), slot.shift(),
+                            slot.medicalPackage()
+                                    .getMedicalPackageName(), ex);
+                } else if (Boolean.TRUE.equals(created)) {
+                    createdCounter.increment();
+                    slotsCreated.incrementAndGet();
+                } else {
+                    // slot đã có trong event store nhưng chưa có trong view (vd. instance khác vừa tạo)
+                    skippedCounter.increment();
+                }
+                return null;
+            }));
+        }
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .join();
+
+        log.info("Created {} slots from {} to {}", slotsCreated.get(), startDate, endDate);
+        return slotsCreated.get();
     }
 
     /**
-     * Creates a single slot with retry mechanism
-     * Uses Spring Retry to automatically retry on failure
+     * Sends a single CreateSlotCommand, retrying with exponential backoff on failure
+     *
+     * @return true if the slot was created, false if it already existed
      */
-    @Retryable(
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 1000, multiplier = 2),
-            retryFor = {Exception.class}
-    )
-    public void createSlotWithRetry(LocalDate date, int shift, String medicalPackageId) {
-        String slotId = UUID.randomUUID().toString();
-        
+    private CompletableFuture<Boolean> createSlot(LocalDate date, int shift, String medicalPackageId) {
         CreateSlotCommand command = CreateSlotCommand.builder()
-                .slotId(slotId)
+                .slotId(SlotId.of(date, shift, medicalPackageId))
                 .date(date)
                 .shift(shift)
                 .medicalPackageId(medicalPackageId)
                 .maxQuantity(defaultMaxQuantity)
                 .build();
-        
-        commandGateway.send(command)
-                .thenAccept(result -> 
-                    log.trace("Successfully created slot: {}", slotId)
-                )
-                .exceptionally(ex -> {
-                    log.error("Failed to create slot for date: {}, shift: {}, package: {}",
-                            date, shift, medicalPackageId, ex);
-                    throw new RuntimeException("Failed to create slot command", ex);
+
+        return sendWithRetry(command, 1, INITIAL_BACKOFF_MS);
+    }
+
+    private CompletableFuture<Boolean> sendWithRetry(CreateSlotCommand command, int attempt, long backoffMs) {
+        return commandGateway.<Boolean>send(command)
+                .<CompletableFuture<Boolean>>handle((created, ex) -> {
+                    if (ex == null) {
+                        log.trace("Slot {} {}", command.slotId(),
+                                Boolean.TRUE.equals(created) ? "created" : "already exists");
+                        return CompletableFuture.completedFuture(created);
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        return CompletableFuture.failedFuture(ex);
+                    }
+
+                    log.warn("Failed to create slot {} (attempt {}/{}), retrying in {} ms", command.slotId(), attempt,
+                            MAX_ATTEMPTS, backoffMs);
+                    Executor delayed = CompletableFuture.delayedExecutor(backoffMs, TimeUnit.MILLISECONDS);
+                    return CompletableFuture.supplyAsync(() -> null, delayed)
+                            .thenCompose(ignored -> sendWithRetry(command, attempt + 1, backoffMs * 2));
                 })
-                .join(); // Wait for completion to ensure retry works properly
+                .thenCompose(future -> future);
     }
 
-    /**
-     * Recovery method called when all retry attempts are exhausted
-     */
-    @Recover
-    public void recoverFromSlotCreationFailure(Exception e, LocalDate date, int shift, String medicalPackageId) {
-        log.error("All retry attempts exhausted for slot creation. Date: {}, Shift: {}, Package: {}. " +
-                "Manual intervention required.", date, shift, medicalPackageId, e);
-        // TODO: Consider storing failed slot creations in a separate table for manual retry
+    private static void acquire(Semaphore window) {
+        try {
+            window.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new IllegalStateException("Interrupted while waiting to dispatch slot creation", e);
+        }
+    }
+
+    private record MissingSlot(LocalDate date, int shift, MedicalPackageView medicalPackage) {
+    }
+
+    private static String slotKey(LocalDate date, int shift, String medicalPackageId) {
+        return date + "|" + shift + "|" + medicalPackageId;
     }
 }
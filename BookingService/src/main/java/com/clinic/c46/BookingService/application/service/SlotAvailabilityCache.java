@@ -0,0 +1,25 @@
+package com.clinic.c46.BookingService.application.service;
+
+import com.clinic.c46.BookingService.application.dto.SlotAvailabilityDto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Số chỗ còn lại của slot theo (gói khám, ngày), giữ trong bộ nhớ cho màn hình lịch đặt khám.
+ * SlotProjection ghi vào đây sau khi lưu SlotView nên dữ liệu luôn theo kịp bảng slot.
+ */
+public interface SlotAvailabilityCache {
+    /**
+     * Slot của gói khám trong [dateFrom, dateTo], sắp theo ngày rồi ca; ngày chưa có trong cache được nạp từ DB.
+     * Optional.empty() khi khoảng ngày dài hơn giới hạn cache, lúc đó đọc thẳng từ DB.
+     */
+    Optional<List<SlotAvailabilityDto>> findByMedicalPackageAndDateRange(String medicalPackageId, LocalDate dateFrom,
+            LocalDate dateTo);
+
+    /**
+     * Ghi đè trạng thái slot nếu ngày của nó đang có trong cache, bỏ qua nếu chưa (lần đọc sau sẽ nạp từ DB).
+     */
+    void update(SlotAvailabilityDto slot);
+}
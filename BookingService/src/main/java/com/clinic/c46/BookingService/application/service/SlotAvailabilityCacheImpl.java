@@ -0,0 +1,157 @@
+package com.clinic.c46.BookingService.application.service;
+
+import com.clinic.c46.BookingService.application.dto.SlotAvailabilityDto;
+import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class SlotAvailabilityCacheImpl implements SlotAvailabilityCache {
+
+    private final SlotViewRepository slotRepository;
+    private final int maxDays;
+    // (gói khám, ngày) → slotId → trạng thái slot
+    private final Cache<PackageDate, Map<String, SlotAvailabilityDto>> cache;
+    // (gói khám, ngày) đang được nạp từ DB → các update() đến trong lúc nạp, áp lên kết quả nạp trước khi đưa vào cache
+    private final Map<PackageDate, Map<String, SlotAvailabilityDto>> loading = new ConcurrentHashMap<>();
+
+    public SlotAvailabilityCacheImpl(SlotViewRepository slotRepository,
+            @Value("${slot.availability-cache.max-entries:10000}") long maxEntries,
+            @Value("${slot.availability-cache.expire-after-write-minutes:5}") long expireAfterWriteMinutes,
+            @Value("${slot.availability-cache.max-days:62}") int maxDays) {
+        this.slotRepository = slotRepository;
+        this.maxDays = maxDays;
+        // Mỗi instance chỉ nhận event của các segment slot-projection nó đang giữ:
+        // expire để cache của instance khác vẫn hội tụ về DB
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(expireAfterWriteMinutes))
+                .build();
+    }
+
+    @Override
+    public Optional<List<SlotAvailabilityDto>> findByMedicalPackageAndDateRange(String medicalPackageId,
+            LocalDate dateFrom, LocalDate dateTo) {
+        if (ChronoUnit.DAYS.between(dateFrom, dateTo) >= maxDays) {
+            return Optional.empty();
+        }
+
+        List<PackageDate> keys = new ArrayList<>();
+        for (LocalDate date = dateFrom; !date.isAfter(dateTo); date = date.plusDays(1)) {
+            keys.add(new PackageDate(medicalPackageId, date));
+        }
+
+        Map<PackageDate, Map<String, SlotAvailabilityDto>> byDate = new HashMap<>(cache.getAllPresent(keys));
+        Set<PackageDate> missing = new HashSet<>(keys);
+        missing.removeAll(byDate.keySet());
+        if (!missing.isEmpty()) {
+            byDate.putAll(loadMissing(missing));
+        }
+
+        List<SlotAvailabilityDto> slots = new ArrayList<>();
+        for (PackageDate key : keys) {
+            List<SlotAvailabilityDto> ofDate = new ArrayList<>(byDate.get(key)
+                    .values());
+            ofDate.sort(Comparator.comparingInt(SlotAvailabilityDto::shift));
+            slots.addAll(ofDate);
+        }
+        return Optional.of(slots);
+    }
+
+    @Override
+    public void update(SlotAvailabilityDto slot) {
+        PackageDate key = new PackageDate(slot.medicalPackageId(), slot.date());
+        // ghi vào lần nạp đang chạy trước, rồi mới vào cache: lần nạp đưa kết quả vào cache và bỏ khỏi loading
+        // trong cùng một bước khóa, nên update luôn rơi vào ít nhất một trong hai chỗ
+        loading.computeIfPresent(key, (k, pending) -> {
+            pending.put(slot.slotId(), slot);
+            return pending;
+        });
+        cache.asMap()
+                .computeIfPresent(key, (k, slots) -> {
+                    slots.put(slot.slotId(), slot);
+                    return slots;
+                });
+    }
+
+    /**
+     * Nạp các ngày còn thiếu bằng một query theo khoảng ngày, rồi đưa vào cache bằng putIfAbsent: ngày đã được
+     * lần đọc khác nạp trong lúc đó giữ bản trong cache (đã nhận các update sau đó) thay vì bị ghi đè bằng bản cũ hơn.
+     */
+    private Map<PackageDate, Map<String, SlotAvailabilityDto>> loadMissing(Set<PackageDate> keys) {
+        keys.forEach(key -> loading.putIfAbsent(key, new ConcurrentHashMap<>()));
+        Map<PackageDate, Map<String, SlotAvailabilityDto>> loaded;
+        try {
+            loaded = loadAll(keys);
+        } catch (RuntimeException e) {
+            keys.forEach(loading::remove);
+            throw e;
+        }
+
+        Map<PackageDate, Map<String, SlotAvailabilityDto>> result = new HashMap<>();
+        keys.forEach(key -> {
+            Map<String, SlotAvailabilityDto> slots = loaded.get(key);
+            loading.computeIfPresent(key, (k, pending) -> {
+                slots.putAll(pending);
+                cache.asMap()
+                        .putIfAbsent(k, slots);
+                return null;
+            });
+            // đọc lại: bản trong cache mới hơn nếu có; bị evict ngay thì dùng kết quả vừa nạp
+            Map<String, SlotAvailabilityDto> cached = cache.getIfPresent(key);
+            result.put(key, cached != null ? cached : slots);
+        });
+        return result;
+    }
+
+    /**
+     * Nạp các (gói khám, ngày) còn thiếu của một lần đọc: một query từ ngày nhỏ nhất tới ngày lớn nhất,
+     * ngày không có slot vẫn được trả về (map rỗng) để được cache như các ngày khác.
+     */
+    private Map<PackageDate, Map<String, SlotAvailabilityDto>> loadAll(Set<PackageDate> keys) {
+        String medicalPackageId = keys.iterator()
+                .next()
+                .medicalPackageId();
+        LocalDate dateFrom = keys.stream()
+                .map(PackageDate::date)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDate dateTo = keys.stream()
+                .map(PackageDate::date)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+
+        Map<PackageDate, Map<String, SlotAvailabilityDto>> loaded = new HashMap<>();
+        keys.forEach(key -> loaded.put(key, new ConcurrentHashMap<>()));
+        slotRepository.findAllByMedicalPackageIdAndDateBetween(medicalPackageId, dateFrom, dateTo)
+                .stream()
+                .map(SlotAvailabilityDto::of)
+                .forEach(slot -> {
+                    Map<String, SlotAvailabilityDto> ofDate = loaded.get(new PackageDate(medicalPackageId,
+                            slot.date()));
+                    // ngày đã có trong cache (nằm giữa khoảng nạp) giữ bản đang cache
+                    if (ofDate != null) {
+                        ofDate.put(slot.slotId(), slot);
+                    }
+                });
+        return loaded;
+    }
+
+    private record PackageDate(String medicalPackageId, LocalDate date) {
+    }
+}
@@ -4,6 +4,7 @@ import com.clinic.c46.BookingService.domain.command.CreateSlotCommand;
 import com.clinic.c46.BookingService.domain.command.UpdateSlotMaxQuantityCommand;
 import com.clinic.c46.BookingService.domain.query.ExistsMedicalPackageByIdQuery;
 import com.clinic.c46.BookingService.domain.query.ExistsSlotByDateShiftPackageQuery;
+import com.clinic.c46.BookingService.domain.valueObject.SlotId;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.CreateSlotRequest;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.UpdateSlotMaxQuantityRequest;
 import com.clinic.c46.CommonService.exception.ResourceExistedException;
@@ -14,7 +15,6 @@ import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
 import org.springframework.stereotype.Service;
 
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 @Service
@@ -26,7 +26,7 @@ public class SlotServiceImpl implements SlotService {
 
     @Override
     public CompletableFuture<String> create(CreateSlotRequest request) {
-        String slotId = UUID.randomUUID().toString();
+        String slotId = SlotId.of(request.getDate(), request.getShift(), request.getMedicalPackageId());
 
         // Check if medical package exists
         ExistsMedicalPackageByIdQuery medicalPackageQuery = ExistsMedicalPackageByIdQuery.builder()
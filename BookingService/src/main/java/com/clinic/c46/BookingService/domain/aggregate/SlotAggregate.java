@@ -8,19 +8,25 @@ import com.clinic.c46.BookingService.domain.exception.SlotLockConflictException;
 import com.clinic.c46.BookingService.domain.exception.SlotUnavailableException;
 import com.clinic.c46.BookingService.domain.valueObject.LockedSlot;
 import com.clinic.c46.CommonService.type.Shift;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import lombok.NoArgsConstructor;
 import org.axonframework.commandhandling.CommandHandler;
 import org.axonframework.eventsourcing.EventSourcingHandler;
+import org.axonframework.modelling.command.AggregateCreationPolicy;
 import org.axonframework.modelling.command.AggregateIdentifier;
 import org.axonframework.modelling.command.AggregateLifecycle;
+import org.axonframework.modelling.command.CreationPolicy;
 import org.axonframework.spring.stereotype.Aggregate;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
 @NoArgsConstructor
-@Aggregate
+@Aggregate(snapshotTriggerDefinition = "slotSnapshotTriggerDefinition")
+// Snapshot được serialize bằng Jackson theo field (aggregate không có getter)
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
 public class SlotAggregate {
     @AggregateIdentifier
     private String slotId;
@@ -28,15 +34,23 @@ public class SlotAggregate {
     private Shift shift;
     private String medicalPackageId;
     private int maxQuantity = 0;
-    private List<LockedSlot> lockedSlots;
+    // fingerprint -> LockedSlot, tra cứu O(1) khi lock/release
+    private Map<String, LockedSlot> lockedSlots;
     private int remainingQuantity = 0;
 
 
     // CREATE
 
+    // slotId được suy ra từ (date, shift, medicalPackageId) nên lệnh tạo có thể bị gửi lặp lại
+    // (nhiều instance, restart) -> slot đã tồn tại thì bỏ qua thay vì ghi thêm event
+    // trả về true nếu slot vừa được tạo, false nếu lệnh không làm gì
     @CommandHandler
-    public SlotAggregate(CreateSlotCommand cmd) {
-        //Validate The Command
+    @CreationPolicy(AggregateCreationPolicy.CREATE_IF_MISSING)
+    public boolean handle(CreateSlotCommand cmd) {
+        if (this.slotId != null) {
+            return false;
+        }
+
         SlotCreatedEvent event = SlotCreatedEvent.builder()
                 .slotId(cmd.slotId())
                 .date(cmd.date())
@@ -46,6 +60,7 @@ public class SlotAggregate {
                 .build();
 
         AggregateLifecycle.apply(event);
+        return true;
     }
 
     @EventSourcingHandler
@@ -56,7 +71,7 @@ public class SlotAggregate {
         this.shift = Shift.fromCode(event.shift());
         this.maxQuantity = event.maxQuantity();
         this.remainingQuantity = this.maxQuantity;
-        this.lockedSlots = new ArrayList<>();
+        this.lockedSlots = new HashMap<>();
     }
 
 
@@ -64,11 +79,7 @@ public class SlotAggregate {
     @CommandHandler
     public void handle(LockSlotCommand cmd) {
 
-        boolean alreadyLocked = this.lockedSlots.stream()
-                .anyMatch(ls -> ls.fingerprint()
-                        .equals(cmd.fingerprint()));
-
-        if (alreadyLocked) {
+        if (this.lockedSlots.containsKey(cmd.fingerprint())) {
             throw new SlotLockConflictException();
         }
 
@@ -90,7 +101,7 @@ public class SlotAggregate {
 
     @EventSourcingHandler
     public void on(SlotLockedEvent event) {
-        this.lockedSlots.add(LockedSlot.builder()
+        this.lockedSlots.put(event.fingerprint(), LockedSlot.builder()
                 .bookingId(event.bookingId())
                 .fingerprint(event.fingerprint())
                 .build());
@@ -102,11 +113,7 @@ public class SlotAggregate {
     // RELEASE
     @CommandHandler
     public void handle(ReleaseLockedSlotCommand cmd) {
-        boolean exists = this.lockedSlots.stream()
-                .anyMatch(lockedSlot -> lockedSlot.fingerprint()
-                        .equals(cmd.fingerprint()));
-
-        if (!exists) {
+        if (!this.lockedSlots.containsKey(cmd.fingerprint())) {
             throw new LockedSlotNotFound();
         }
 
@@ -121,8 +128,7 @@ public class SlotAggregate {
     @EventSourcingHandler
     public void on(LockedSlotReleasedEvent event) {
         this.remainingQuantity++;
-        this.lockedSlots.removeIf(lk -> lk.fingerprint()
-                .equals(event.fingerprint()));
+        this.lockedSlots.remove(event.fingerprint());
     }
 
     @CommandHandler
@@ -137,8 +143,7 @@ public class SlotAggregate {
 
     @EventSourcingHandler
     public void on(FingerprintReleasedEvent event) {
-        this.lockedSlots.removeIf(lk -> lk.fingerprint()
-                .equals(event.fingerprint()));
+        this.lockedSlots.remove(event.fingerprint());
     }
 
     // UPDATE MAX QUANTITY
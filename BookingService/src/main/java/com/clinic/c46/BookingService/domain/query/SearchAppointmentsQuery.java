@@ -2,6 +2,7 @@ package com.clinic.c46.BookingService.domain.query;
 
 
 import com.clinic.c46.BookingService.domain.enums.AppointmentState;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SortDirection;
 import lombok.Builder;
 import lombok.Value;
@@ -35,5 +36,13 @@ public class SearchAppointmentsQuery {
 
     @Builder.Default
     Boolean includeDeleted = false;
+
+    @Builder.Default
+    PaginationMode pagination = PaginationMode.OFFSET;
+
+    String cursor;
+
+    @Builder.Default
+    Boolean withTotal = false;
 }
 
@@ -0,0 +1,21 @@
+package com.clinic.c46.BookingService.domain.valueObject;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Mã slot được suy ra từ (ngày, ca, gói khám): cùng một bộ giá trị luôn cho cùng một slotId,
+ * nhờ vậy nhiều instance tạo slot song song hoặc chạy lại sau khi restart sẽ trỏ vào cùng một aggregate.
+ */
+public final class SlotId {
+
+    private SlotId() {
+    }
+
+    public static String of(LocalDate date, int shift, String medicalPackageId) {
+        String name = "slot|" + date + "|" + shift + "|" + medicalPackageId;
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+}
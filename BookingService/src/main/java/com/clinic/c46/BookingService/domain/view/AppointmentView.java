@@ -11,7 +11,8 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "appointment")
+@Table(name = "appointment", indexes = {@Index(name = "idx_appointment_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_appointment_reminder", columnList = "date, is_reminded, id")})
 @Getter
 @Setter
 @SuperBuilder
@@ -8,6 +8,7 @@ import com.clinic.c46.BookingService.domain.enums.AppointmentState;
 import com.clinic.c46.BookingService.domain.query.SearchAppointmentsQuery;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.AppointmentsPagedResponse;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.CreateAppointmentRequest;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.axonframework.queryhandling.QueryGateway;
@@ -35,7 +36,9 @@ public class AppointmentController {
             @RequestParam(defaultValue = "0") Integer page, @RequestParam(defaultValue = "0") Integer size,
             @RequestParam(defaultValue = "createdAt") String sortBy, @RequestParam(defaultValue = "ASC") String sort,
             @RequestParam(required = false) String keyword, @RequestParam(required = false) String state,
-            @RequestParam(required = false) LocalDate dateFrom, @RequestParam(required = false) LocalDate dateTo) {
+            @RequestParam(required = false) LocalDate dateFrom, @RequestParam(required = false) LocalDate dateTo,
+            @RequestParam(defaultValue = "OFFSET") PaginationMode pagination,
+            @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "false") Boolean withTotal) {
 
         SearchAppointmentsQuery query = SearchAppointmentsQuery.builder()
                 .page(page)
@@ -46,6 +49,9 @@ public class AppointmentController {
                 .state(state)
                 .dateFrom(dateFrom)
                 .dateTo(dateTo)
+                .pagination(pagination)
+                .cursor(cursor)
+                .withTotal(withTotal)
                 .build();
 
         return queryGateway.query(query, AppointmentsPagedResponse.class)
@@ -2,27 +2,42 @@ package com.clinic.c46.BookingService.infrastructure.adapter.in.web.controller;
 
 
 import com.clinic.c46.BookingService.domain.command.LockSlotCommand;
+import com.clinic.c46.BookingService.domain.enums.BookingStatus;
 import com.clinic.c46.BookingService.domain.query.GetBookingStatusByIdQuery;
 import com.clinic.c46.BookingService.domain.view.BookingStatusView;
 import com.clinic.c46.BookingService.infrastructure.adapter.in.web.dto.CreateBookingRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
+import org.axonframework.queryhandling.SubscriptionQueryResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/booking")
 @RequiredArgsConstructor
+@Slf4j
 public class BookingController {
 
     private final CommandGateway commandGateway;
     private final QueryGateway queryGateway;
 
+    // BookingProcessingSaga tự kết thúc (APPROVED/REJECTED) sau tối đa 10 phút
+    @Value("${booking.status-stream.timeout-ms:600000}")
+    private long statusStreamTimeoutMs;
+
     @PostMapping
     public ResponseEntity<Map<String, String>> booking(@RequestBody CreateBookingRequest createBookingRequest,
             @RequestHeader(value = "Fingerprint", required = true) String fingerprint) {
@@ -56,4 +71,48 @@ public class BookingController {
                 .body(Map.of("bookingStatus", bookingStatusView));
     }
 
+    /**
+     * SSE thay cho polling /status: gửi trạng thái hiện tại rồi mỗi lần BookingStatusProjection cập nhật,
+     * đóng stream khi booking đã APPROVED hoặc REJECTED.
+     */
+    @GetMapping(value = "/{bookingId}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingState(@PathVariable String bookingId) {
+        SseEmitter emitter = new SseEmitter(statusStreamTimeoutMs);
+
+        SubscriptionQueryResult<Optional<BookingStatusView>, BookingStatusView> result =
+                queryGateway.subscriptionQuery(GetBookingStatusByIdQuery.builder()
+                        .bookingId(bookingId)
+                        .build(), ResponseTypes.optionalInstanceOf(BookingStatusView.class),
+                        ResponseTypes.instanceOf(BookingStatusView.class));
+
+        // initial result null khi projection chưa kịp tạo bản ghi PENDING, update đầu tiên sẽ mang nó tới
+        Disposable subscription = Flux.concat(result.initialResult()
+                                .mapNotNull(initial -> initial.orElse(null)), result.updates())
+                .takeUntil(BookingController::isFinished)
+                .doFinally(signal -> result.close())
+                .subscribe(status -> sendStatus(emitter, status), emitter::completeWithError, emitter::complete);
+
+        emitter.onCompletion(subscription::dispose);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscription.dispose());
+        return emitter;
+    }
+
+    private static boolean isFinished(BookingStatusView status) {
+        return !BookingStatus.PENDING.name()
+                .equals(status.getStatus());
+    }
+
+    private static void sendStatus(SseEmitter emitter, BookingStatusView status) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("bookingStatus")
+                    .data(Map.of("bookingStatus", status), MediaType.APPLICATION_JSON));
+        } catch (IOException ex) {
+            // client đã ngắt kết nối
+            log.debug("Booking status stream closed for bookingId: {}", status.getBookingId());
+            emitter.completeWithError(ex);
+        }
+    }
+
 }
@@ -3,6 +3,7 @@ package com.clinic.c46.BookingService.infrastructure.adapter.in.web.controller;
 import com.clinic.c46.BookingService.application.repository.MedicalPackageViewRepository;
 import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
 import com.clinic.c46.BookingService.domain.command.CreateSlotCommand;
+import com.clinic.c46.BookingService.domain.valueObject.SlotId;
 import com.clinic.c46.BookingService.domain.view.MedicalPackageView;
 import com.clinic.c46.BookingService.domain.view.SlotView;
 import com.clinic.c46.CommonService.type.Shift;
@@ -19,7 +20,6 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/slot/migration")
@@ -39,6 +39,7 @@ public class SlotMigrationController {
     public ResponseEntity<Map<String, Object>> migrateExistingSlots() {
         List<SlotView> existingSlots = slotViewRepository.findAll();
         List<String> migratedSlots = new ArrayList<>();
+        List<String> alreadyMigratedSlots = new ArrayList<>();
         List<String> failedSlots = new ArrayList<>();
 
         log.info("Starting migration of {} slots", existingSlots.size());
@@ -54,10 +55,15 @@ public class SlotMigrationController {
                         .date(slot.getDate())
                         .build();
 
-                // Send to Axon - this will create the aggregate
-                commandGateway.sendAndWait(command);
-                migratedSlots.add(slot.getSlotId());
-                log.info("Migrated slot: {}", slot.getSlotId());
+                // Send to Axon - this will create the aggregate, false if it already exists
+                Boolean created = commandGateway.sendAndWait(command);
+                if (Boolean.TRUE.equals(created)) {
+                    migratedSlots.add(slot.getSlotId());
+                    log.info("Migrated slot: {}", slot.getSlotId());
+                } else {
+                    alreadyMigratedSlots.add(slot.getSlotId());
+                    log.info("Slot already in event store: {}", slot.getSlotId());
+                }
 
             } catch (Exception e) {
                 log.error("Failed to migrate slot: {}", slot.getSlotId(), e);
@@ -68,8 +74,10 @@ public class SlotMigrationController {
         return ResponseEntity.ok(Map.of(
                 "total", existingSlots.size(),
                 "migrated", migratedSlots.size(),
+                "alreadyMigrated", alreadyMigratedSlots.size(),
                 "failed", failedSlots.size(),
                 "migratedSlots", migratedSlots,
+                "alreadyMigratedSlots", alreadyMigratedSlots,
                 "failedSlots", failedSlots));
     }
 
@@ -90,12 +98,14 @@ public class SlotMigrationController {
                     .date(slot.getDate())
                     .build();
 
-            commandGateway.sendAndWait(command);
+            Boolean created = commandGateway.sendAndWait(command);
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "slotId", slotId,
-                    "message", "Slot migrated to Axon event store"));
+                    "message", Boolean.TRUE.equals(created)
+                            ? "Slot migrated to Axon event store"
+                            : "Slot already exists in Axon event store"));
 
         } catch (Exception e) {
             log.error("Failed to migrate slot: {}", slotId, e);
@@ -126,25 +136,29 @@ public class SlotMigrationController {
 
             // Step 2: Create slots for each package
             List<String> createdSlots = new ArrayList<>();
+            List<String> existingSlots = new ArrayList<>();
             List<String> failedSlots = new ArrayList<>();
 
             for (MedicalPackageView pkg : packages) {
                 try {
-                    createSlotsForPackage(pkg.getMedicalPackageId(), createdSlots, failedSlots);
+                    createSlotsForPackage(pkg.getMedicalPackageId(), createdSlots, existingSlots, failedSlots);
                 } catch (Exception e) {
                     log.error("Failed to create slots for package: {}", pkg.getMedicalPackageId(), e);
                     failedSlots.add(pkg.getMedicalPackageId());
                 }
             }
 
-            log.info("New slots creation completed: {} created, {} failed", createdSlots.size(), failedSlots.size());
+            log.info("New slots creation completed: {} created, {} already existed, {} failed", createdSlots.size(),
+                    existingSlots.size(), failedSlots.size());
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "totalPackages", packages.size(),
                     "slotsCreated", createdSlots.size(),
+                    "slotsExisting", existingSlots.size(),
                     "slotsFailed", failedSlots.size(),
                     "createdSlots", createdSlots,
+                    "existingSlots", existingSlots,
                     "failedSlots", failedSlots));
 
         } catch (Exception e) {
@@ -168,16 +182,19 @@ public class SlotMigrationController {
                     .orElseThrow(() -> new IllegalArgumentException("Medical package not found: " + medicalPackageId));
 
             List<String> createdSlots = new ArrayList<>();
+            List<String> existingSlots = new ArrayList<>();
             List<String> failedSlots = new ArrayList<>();
 
-            createSlotsForPackage(medicalPackageId, createdSlots, failedSlots);
+            createSlotsForPackage(medicalPackageId, createdSlots, existingSlots, failedSlots);
 
             return ResponseEntity.ok(Map.of(
                     "status", "success",
                     "medicalPackageId", medicalPackageId,
                     "slotsCreated", createdSlots.size(),
+                    "slotsExisting", existingSlots.size(),
                     "slotsFailed", failedSlots.size(),
                     "createdSlots", createdSlots,
+                    "existingSlots", existingSlots,
                     "failedSlots", failedSlots));
 
         } catch (Exception e) {
@@ -188,9 +205,11 @@ public class SlotMigrationController {
     }
 
     /**
-     * Create slots for a specific package with predefined schedule
+     * Create slots for a specific package with predefined schedule.
+     * Slots that already exist in the event store are reported in existingSlots, not createdSlots
      */
-    private void createSlotsForPackage(String medicalPackageId, List<String> createdSlots, List<String> failedSlots) {
+    private void createSlotsForPackage(String medicalPackageId, List<String> createdSlots, List<String> existingSlots,
+            List<String> failedSlots) {
         log.info("Creating slots for package: {}", medicalPackageId);
 
         // Get predefined slot schedule
@@ -198,7 +217,7 @@ public class SlotMigrationController {
 
         for (SlotSchedule schedule : schedules) {
             try {
-                String slotId = UUID.randomUUID().toString();
+                String slotId = SlotId.of(schedule.date, schedule.shift, medicalPackageId);
 
                 CreateSlotCommand command = CreateSlotCommand.builder()
                         .slotId(slotId)
@@ -208,10 +227,15 @@ public class SlotMigrationController {
                         .maxQuantity(schedule.maxQuantity)
                         .build();
 
-                commandGateway.sendAndWait(command);
-                createdSlots.add(slotId);
-                log.debug("Created slot: {} for package: {} on date: {} shift: {}",
-                        slotId, medicalPackageId, schedule.date, schedule.shift);
+                Boolean created = commandGateway.sendAndWait(command);
+                if (Boolean.TRUE.equals(created)) {
+                    createdSlots.add(slotId);
+                    log.debug("Created slot: {} for package: {} on date: {} shift: {}",
+                            slotId, medicalPackageId, schedule.date, schedule.shift);
+                } else {
+                    existingSlots.add(slotId);
+                    log.debug("Slot already exists: {}", slotId);
+                }
 
             } catch (Exception e) {
                 log.error("Failed to create slot for package: {} with schedule: {}",
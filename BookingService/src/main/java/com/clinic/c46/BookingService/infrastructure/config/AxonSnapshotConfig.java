@@ -0,0 +1,22 @@
+package com.clinic.c46.BookingService.infrastructure.config;
+
+import org.axonframework.eventsourcing.EventCountSnapshotTriggerDefinition;
+import org.axonframework.eventsourcing.SnapshotTriggerDefinition;
+import org.axonframework.eventsourcing.Snapshotter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class AxonSnapshotConfig {
+
+    /**
+     * SlotAggregate nhận một event cho mỗi lần lock/release, trong giờ cao điểm
+     * số event tăng nhanh -> chụp snapshot sau mỗi N event để load aggregate không phải replay từ đầu.
+     */
+    @Bean
+    public SnapshotTriggerDefinition slotSnapshotTriggerDefinition(Snapshotter snapshotter,
+            @Value("${axon.snapshot.slot.threshold:50}") int threshold) {
+        return new EventCountSnapshotTriggerDefinition(snapshotter, threshold);
+    }
+}
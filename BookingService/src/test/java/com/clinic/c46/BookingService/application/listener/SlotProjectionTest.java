@@ -0,0 +1,175 @@
+package com.clinic.c46.BookingService.application.listener;
+
+import com.clinic.c46.BookingService.application.dto.SlotAvailabilityDto;
+import com.clinic.c46.BookingService.application.repository.SlotViewRepository;
+import com.clinic.c46.BookingService.application.service.SlotAvailabilityCache;
+import com.clinic.c46.BookingService.domain.event.LockedSlotReleasedEvent;
+import com.clinic.c46.BookingService.domain.event.SlotLockedEvent;
+import com.clinic.c46.BookingService.domain.view.SlotView;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotProjectionTest {
+
+    private static final String SLOT_ID = "slot-1";
+
+    private final Map<String, SlotView> slots = new HashMap<>();
+    private final List<Integer> updates = new ArrayList<>();
+    private final Map<String, SlotAvailabilityDto> cached = new HashMap<>();
+
+    private SlotProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        slots.clear();
+        updates.clear();
+        cached.clear();
+        projection = new SlotProjection(slotRepository(), availabilityCache());
+    }
+
+    @Test
+    void netsLockAndReleaseOfOneBatchIntoOneUpdate() {
+        givenSlot(5, 10);
+
+        inOneBatch(() -> {
+            projection.on(locked());
+            projection.on(locked());
+            projection.on(released());
+        });
+
+        assertThat(updates).containsExactly(-1);
+        assertThat(remaining()).isEqualTo(4);
+        assertThat(cached.get(SLOT_ID)
+                .remainingQuantity()).isEqualTo(4);
+    }
+
+    @Test
+    void skipsWriteWhenLockAndReleaseCancelOut() {
+        givenSlot(5, 10);
+
+        inOneBatch(() -> {
+            projection.on(locked());
+            projection.on(released());
+        });
+
+        assertThat(updates).isEmpty();
+        assertThat(remaining()).isEqualTo(5);
+    }
+
+    @Test
+    void appliesEventsOneByOneWhenNetDeltaIsBelowZero() {
+        givenSlot(1, 10);
+
+        inOneBatch(() -> {
+            projection.on(locked());
+            projection.on(locked());
+            projection.on(locked());
+        });
+
+        // -3 bị từ chối, sau đó chỉ lần lock đầu tiên còn chỗ
+        assertThat(updates).containsExactly(-3, -1, -1, -1);
+        assertThat(remaining()).isZero();
+        assertThat(cached.get(SLOT_ID)
+                .remainingQuantity()).isZero();
+    }
+
+    @Test
+    void appliesEventsOneByOneWhenNetDeltaIsAboveMax() {
+        givenSlot(10, 10);
+
+        inOneBatch(() -> {
+            projection.on(locked());
+            projection.on(released());
+            projection.on(released());
+        });
+
+        // +1 bị từ chối; lần lượt: 10 -> 9 -> 10, lần release cuối vượt max nên bị bỏ
+        assertThat(updates).containsExactly(1, -1, 1, 1);
+        assertThat(remaining()).isEqualTo(10);
+    }
+
+    private void inOneBatch(Runnable events) {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        events.run();
+        unitOfWork.commit();
+    }
+
+    private void givenSlot(int remainingQuantity, int maxQuantity) {
+        slots.put(SLOT_ID, new SlotView(SLOT_ID, "package-1", LocalDate.of(2026, 1, 5), 0, maxQuantity,
+                remainingQuantity));
+    }
+
+    private int remaining() {
+        return slots.get(SLOT_ID)
+                .getRemainingQuantity();
+    }
+
+    private static SlotLockedEvent locked() {
+        return SlotLockedEvent.builder()
+                .slotId(SLOT_ID)
+                .build();
+    }
+
+    private static LockedSlotReleasedEvent released() {
+        return LockedSlotReleasedEvent.builder()
+                .slotId(SLOT_ID)
+                .build();
+    }
+
+    /**
+     * Bảng slot trong bộ nhớ, chỉ hỗ trợ các câu lệnh SlotProjection dùng khi lock/release
+     */
+    private SlotViewRepository slotRepository() {
+        return (SlotViewRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SlotViewRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "addRemainingQuantity" -> addRemainingQuantity((String) args[0], (int) args[1]);
+                    case "findAllById" -> {
+                        List<SlotView> found = new ArrayList<>();
+                        ((Iterable<?>) args[0]).forEach(id -> Optional.ofNullable(slots.get(id))
+                                .ifPresent(found::add));
+                        yield found;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private int addRemainingQuantity(String slotId, int delta) {
+        updates.add(delta);
+        SlotView slot = slots.get(slotId);
+        if (slot == null) {
+            return 0;
+        }
+        int remaining = slot.getRemainingQuantity() + delta;
+        if (remaining < 0 || remaining > slot.getMaxQuantity()) {
+            return 0;
+        }
+        slots.put(slotId, new SlotView(slotId, slot.getMedicalPackageId(), slot.getDate(), slot.getShift(),
+                slot.getMaxQuantity(), remaining));
+        return 1;
+    }
+
+    private SlotAvailabilityCache availabilityCache() {
+        return (SlotAvailabilityCache) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{SlotAvailabilityCache.class}, (proxy, method, args) -> {
+                    if (method.getName()
+                            .equals("update")) {
+                        SlotAvailabilityDto slot = (SlotAvailabilityDto) args[0];
+                        cached.put(slot.slotId(), slot);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
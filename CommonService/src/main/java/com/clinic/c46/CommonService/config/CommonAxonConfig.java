@@ -1,52 +1,180 @@
 package com.clinic.c46.CommonService.config;
 
+import com.clinic.c46.CommonService.deadline.JdbcDeadlineManager;
+import com.clinic.c46.CommonService.eventhandling.ProcessorTokenInheritance;
+import com.clinic.c46.CommonService.serialization.CompactBinaryCodec;
+import com.clinic.c46.CommonService.serialization.CompactBinarySerializer;
+import com.clinic.c46.CommonService.serialization.CompactDictionary;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.axonframework.config.ConfigurationScopeAwareProvider;
+import org.axonframework.config.ConfigurerModule;
 import org.axonframework.config.EventProcessingConfigurer;
 import org.axonframework.deadline.DeadlineManager;
 import org.axonframework.deadline.SimpleDeadlineManager;
+import org.axonframework.eventhandling.tokenstore.TokenStore;
+import org.axonframework.lifecycle.Phase;
 import org.axonframework.serialization.Serializer;
 import org.axonframework.serialization.json.JacksonSerializer;
 import org.axonframework.spring.messaging.unitofwork.SpringTransactionManager;
+import org.axonframework.springboot.EventProcessorProperties;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
 @Configuration
+@Import(CommonMetricsConfig.class)
 @PropertySource("classpath:application-common.properties")
 @EnableScheduling
 public class CommonAxonConfig {
+
+    // json: JSON như trước; compact: payload nhị phân gọn khi lưu/gửi dạng byte[], vẫn đọc được JSON cũ.
+    // axon.serializer.events/messages trùng general nên event và message cũng dùng serializer này
+    private static final String COMPACT_FORMAT = "compact";
+
+    @Value("${app.serializer.format:json}")
+    private String serializerFormat;
+
+    // jdbc: lưu deadline trong DB (bền qua restart, chia giữa các instance); memory: SimpleDeadlineManager
+    @Value("${axon.deadline.store:jdbc}")
+    private String deadlineStore;
+
+    @Value("${axon.deadline.jdbc.tick-ms:100}")
+    private long deadlineTickMs;
+
+    @Value("${axon.deadline.jdbc.wheel-size:1024}")
+    private int deadlineWheelSize;
+
+    @Value("${axon.deadline.jdbc.poll-interval-ms:5000}")
+    private long deadlinePollIntervalMs;
+
+    @Value("${axon.deadline.jdbc.look-ahead-ms:30000}")
+    private long deadlineLookAheadMs;
+
+    @Value("${axon.deadline.jdbc.lease-grace-ms:30000}")
+    private long deadlineLeaseGraceMs;
+
+    @Value("${axon.deadline.jdbc.retry-delay-ms:10000}")
+    private long deadlineRetryDelayMs;
+
+    @Value("${axon.deadline.jdbc.claim-batch-size:500}")
+    private int deadlineClaimBatchSize;
+
+    @Value("${axon.deadline.jdbc.fire-batch-size:50}")
+    private int deadlineFireBatchSize;
+
+    @Value("${axon.deadline.jdbc.fire-threads:4}")
+    private int deadlineFireThreads;
+
+    @Value("${axon.deadline.jdbc.max-attempts:3}")
+    private int deadlineMaxAttempts;
+
+    @Value("${axon.deadline.jdbc.create-schema:true}")
+    private boolean deadlineCreateSchema;
+
+    // processor mới -> processor cũ khi tách handler sang @ProcessingGroup riêng (SpEL map)
+    @Value("#{${app.eventhandling.inherit-tokens:{:}}}")
+    private Map<String, String> inheritTokens;
+
     @Bean
     @Primary
-    public Serializer serializer(ObjectMapper objectMapper) {
+    public Serializer serializer(ObjectMapper objectMapper, ObjectProvider<CompactBinaryCodec> compactBinaryCodec) {
         // Tạo một bản copy của ObjectMapper để cấu hình độc lập
         ObjectMapper copyObjectMapper = objectMapper.copy();
 
         // **QUAN TRỌNG:** Thêm Default Typing để Jackson thêm trường "@class"
         // vào JSON/Payload cho các đối tượng và List.
         // Điều này giúp Axon biết kiểu Generic thực sự của các phần tử trong List.
-        return JacksonSerializer.builder()
+        JacksonSerializer jsonSerializer = JacksonSerializer.builder()
                 .objectMapper(copyObjectMapper)
                 .defaultTyping()
                 .lenientDeserialization()
                 .build();
+
+        if (COMPACT_FORMAT.equalsIgnoreCase(serializerFormat)) {
+            return new CompactBinarySerializer(jsonSerializer, compactBinaryCodec.getObject());
+        }
+        return jsonSerializer;
+    }
+
+    @Bean
+    @ConditionalOnProperty(value = "app.serializer.format", havingValue = COMPACT_FORMAT)
+    public CompactBinaryCodec compactBinaryCodec() {
+        return new CompactBinaryCodec(CompactDictionary.load());
     }
 
     @Bean
     @ConditionalOnProperty(value = "axon.deadline.enabled", havingValue = "true", matchIfMissing = true)
     public DeadlineManager deadlineManager(SpringTransactionManager transactionManager,
-            org.axonframework.config.Configuration configuration) {
+            org.axonframework.config.Configuration configuration, DataSource dataSource, Serializer serializer) {
+
+        if ("memory".equalsIgnoreCase(deadlineStore)) {
+            return SimpleDeadlineManager.builder()
+                    .scopeAwareProvider(new ConfigurationScopeAwareProvider(configuration))
+                    .transactionManager(transactionManager)
+                    .build();
+        }
 
-        return SimpleDeadlineManager.builder()
+        return JdbcDeadlineManager.builder()
+                .dataSource(dataSource)
                 .scopeAwareProvider(new ConfigurationScopeAwareProvider(configuration))
                 .transactionManager(transactionManager)
+                .serializer(serializer)
+                .tick(Duration.ofMillis(deadlineTickMs))
+                .wheelSize(deadlineWheelSize)
+                .pollInterval(Duration.ofMillis(deadlinePollIntervalMs))
+                .lookAhead(Duration.ofMillis(deadlineLookAheadMs))
+                .leaseGrace(Duration.ofMillis(deadlineLeaseGraceMs))
+                .retryDelay(Duration.ofMillis(deadlineRetryDelayMs))
+                .claimBatchSize(deadlineClaimBatchSize)
+                .fireBatchSize(deadlineFireBatchSize)
+                .fireThreads(deadlineFireThreads)
+                .maxAttempts(deadlineMaxAttempts)
+                .createSchema(deadlineCreateSchema)
                 .build();
     }
 
+    /**
+     * Processor tách ra từ processor cũ nhận token của processor cũ trước khi các event processor khởi động
+     * (phase INBOUND_EVENT_CONNECTORS), thay vì đọc lại toàn bộ event store.
+     */
+    @Bean
+    public ConfigurerModule processorTokenInheritance(ObjectProvider<TokenStore> tokenStore,
+            ObjectProvider<SpringTransactionManager> transactionManager,
+            ObjectProvider<EventProcessorProperties> eventProcessorProperties) {
+        return configurer -> configurer.onStart(Phase.INBOUND_EVENT_CONNECTORS - 1, () -> {
+            if (inheritTokens.isEmpty()) {
+                return;
+            }
+            new ProcessorTokenInheritance(tokenStore.getObject(), transactionManager.getObject(), inheritTokens,
+                    processorName -> initialSegmentCount(eventProcessorProperties.getIfAvailable(),
+                            processorName)).run();
+        });
+    }
+
+    // cùng mặc định với Axon auto-config: tracking 1 segment, pooled 16 segment
+    private static int initialSegmentCount(EventProcessorProperties properties, String processorName) {
+        EventProcessorProperties.ProcessorSettings settings = properties == null ? null : properties.getProcessors()
+                .get(processorName);
+        if (settings == null) {
+            return 1;
+        }
+        if (settings.getInitialSegmentCount() != null) {
+            return settings.getInitialSegmentCount();
+        }
+        return settings.getMode() == EventProcessorProperties.Mode.POOLED ? 16 : 1;
+    }
+
     /**
      * Configure retry mechanism for default event processor
      * This will apply to all modules using default processor (without @ProcessingGroup)
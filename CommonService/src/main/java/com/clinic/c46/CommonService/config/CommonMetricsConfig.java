@@ -0,0 +1,50 @@
+package com.clinic.c46.CommonService.config;
+
+import com.clinic.c46.CommonService.metrics.EventProcessorMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.config.ConfigurerModule;
+import org.axonframework.eventhandling.EventProcessor;
+import org.axonframework.lifecycle.Phase;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Micrometer metric cho event processor và saga (xem {@link EventProcessorMetrics}), đọc qua actuator /metrics.
+ */
+@Configuration
+public class CommonMetricsConfig {
+
+    @Value("${app.metrics.event-processor.enabled:true}")
+    private boolean enabled;
+
+    // percentile histogram cho axon.event.processor.handling
+    @Value("${app.metrics.event-processor.histogram:true}")
+    private boolean histogram;
+
+    @Value("${app.metrics.event-processor.refresh-interval-ms:10000}")
+    private long refreshIntervalMs;
+
+    @Bean
+    public ConfigurerModule eventProcessorMetricsConfigurer(ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectProvider<EntityManagerProvider> entityManagerProvider) {
+        return configurer -> {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (!enabled || registry == null) {
+                return;
+            }
+
+            EventProcessorMetrics metrics = new EventProcessorMetrics(registry, histogram,
+                    Duration.ofMillis(refreshIntervalMs), entityManagerProvider::getObject);
+
+            configurer.configureMessageMonitor(EventProcessor.class,
+                    (configuration, componentType, componentName) -> metrics.monitor(componentName));
+            configurer.onInitialize(configuration -> configuration.onStart(Phase.INSTRUCTION_COMPONENTS,
+                    () -> metrics.bind(configuration)));
+        };
+    }
+}
@@ -0,0 +1,14 @@
+package com.clinic.c46.CommonService.deadline;
+
+import java.time.Instant;
+
+/**
+ * Deadline đã được node này claim, đủ thông tin để xếp vào time wheel và để huỷ theo tên / scope.
+ */
+record DeadlineEntry(String deadlineId, String deadlineName, String scopeType, String scopeData, Instant triggerAt) {
+
+    boolean matches(String deadlineName, String scopeType, String scopeData) {
+        return this.deadlineName.equals(deadlineName) && this.scopeType.equals(scopeType) && this.scopeData.equals(
+                scopeData);
+    }
+}
@@ -0,0 +1,77 @@
+package com.clinic.c46.CommonService.deadline;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed time wheel giữ các deadline node này đã claim.
+ * <p>
+ * Mỗi ô ứng với một tick; thêm và lấy deadline đến hạn đều O(1) theo số deadline trong ô,
+ * không phụ thuộc tổng số deadline đang chờ. Deadline xa hơn một vòng quay vẫn nằm trong ô
+ * của nó và chỉ được trả về khi đúng tick.
+ */
+final class DeadlineTimeWheel {
+
+    private final long tickMillis;
+    private final List<ArrayDeque<Slot>> buckets;
+    private long currentTick;
+    private int size;
+
+    DeadlineTimeWheel(long tickMillis, int wheelSize, Instant now) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayDeque<>());
+        }
+        this.currentTick = now.toEpochMilli() / tickMillis;
+    }
+
+    synchronized void add(DeadlineEntry entry) {
+        // deadline đã quá hạn được xếp vào tick kế tiếp
+        long tick = Math.max(entry.triggerAt()
+                .toEpochMilli() / tickMillis, currentTick + 1);
+        bucket(tick).add(new Slot(tick, entry));
+        size++;
+    }
+
+    /**
+     * Quay bánh xe tới thời điểm now và trả về các deadline đã đến hạn.
+     */
+    synchronized List<DeadlineEntry> advance(Instant now) {
+        long targetTick = now.toEpochMilli() / tickMillis;
+        if (targetTick <= currentTick) {
+            return List.of();
+        }
+
+        // bị trễ hơn một vòng quay: mỗi ô chỉ cần duyệt một lần
+        long fromTick = Math.max(currentTick + 1, targetTick - buckets.size() + 1);
+        List<DeadlineEntry> due = new ArrayList<>();
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Iterator<Slot> iterator = bucket(tick).iterator();
+            while (iterator.hasNext()) {
+                Slot slot = iterator.next();
+                if (slot.tick() <= targetTick) {
+                    iterator.remove();
+                    due.add(slot.entry());
+                }
+            }
+        }
+        currentTick = targetTick;
+        size -= due.size();
+        return due;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private ArrayDeque<Slot> bucket(long tick) {
+        return buckets.get((int) Math.floorMod(tick, (long) buckets.size()));
+    }
+
+    private record Slot(long tick, DeadlineEntry entry) {
+    }
+}
@@ -0,0 +1,488 @@
+package com.clinic.c46.CommonService.deadline;
+
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.deadline.AbstractDeadlineManager;
+import org.axonframework.deadline.DeadlineException;
+import org.axonframework.deadline.DeadlineMessage;
+import org.axonframework.deadline.GenericDeadlineMessage;
+import org.axonframework.messaging.DefaultInterceptorChain;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.ScopeAwareProvider;
+import org.axonframework.messaging.ScopeDescriptor;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DeadlineManager lưu deadline trong bảng axon_deadline thay vì bộ nhớ JVM.
+ * <p>
+ * - Deadline sống sót qua restart: chỉ bị xoá khi đã xử lý xong (cùng transaction với handler) hoặc bị huỷ.
+ * - Nhiều instance dùng chung bảng: mỗi lần poll, node claim một lô deadline sắp đến hạn
+ * (trong khoảng look-ahead) bằng UPDATE ... FOR UPDATE SKIP LOCKED, có lease; node chết thì
+ * lease hết hạn và node khác claim lại.
+ * - Deadline đã claim nằm trong {@link DeadlineTimeWheel}; mỗi tick lấy các deadline đến hạn,
+ * kiểm tra lại trong DB theo lô (bỏ qua deadline đã bị huỷ) rồi xử lý song song.
+ * <p>
+ * Cú pháp SQL dành cho PostgreSQL.
+ */
+@Slf4j
+public class JdbcDeadlineManager extends AbstractDeadlineManager implements SmartLifecycle {
+
+    private static final String TABLE = "axon_deadline";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ScopeAwareProvider scopeAwareProvider;
+    private final TransactionManager transactionManager;
+    private final Serializer serializer;
+
+    private final String nodeId;
+    private final Duration tick;
+    private final Duration pollInterval;
+    private final Duration lookAhead;
+    private final Duration lease;
+    private final Duration retryDelay;
+    private final int claimBatchSize;
+    private final int fireBatchSize;
+    private final int fireThreads;
+    private final int maxAttempts;
+    private final boolean createSchema;
+
+    private final DeadlineTimeWheel timeWheel;
+    // deadlineId -> deadline node này đang giữ trong time wheel
+    private final Map<String, DeadlineEntry> claimedDeadlines = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService firingExecutor;
+    private volatile boolean running;
+
+    @Builder
+    private JdbcDeadlineManager(DataSource dataSource, ScopeAwareProvider scopeAwareProvider,
+            TransactionManager transactionManager, Serializer serializer, Duration tick, int wheelSize,
+            Duration pollInterval, Duration lookAhead, Duration leaseGrace, Duration retryDelay, int claimBatchSize,
+            int fireBatchSize, int fireThreads, int maxAttempts, boolean createSchema) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.scopeAwareProvider = scopeAwareProvider;
+        this.transactionManager = transactionManager;
+        this.serializer = serializer;
+        this.nodeId = UUID.randomUUID()
+                .toString();
+        this.tick = tick;
+        this.pollInterval = pollInterval;
+        this.lookAhead = lookAhead;
+        this.lease = lookAhead.plus(leaseGrace);
+        this.retryDelay = retryDelay;
+        this.claimBatchSize = claimBatchSize;
+        this.fireBatchSize = fireBatchSize;
+        this.fireThreads = fireThreads;
+        this.maxAttempts = maxAttempts;
+        this.createSchema = createSchema;
+        this.timeWheel = new DeadlineTimeWheel(tick.toMillis(), wheelSize, Instant.now());
+    }
+
+    // ====================== DeadlineManager ======================
+
+    @Override
+    public String schedule(Instant triggerDateTime, String deadlineName, Object messageOrPayload,
+            ScopeDescriptor deadlineScope) {
+        DeadlineMessage<Object> deadlineMessage = processDispatchInterceptors(
+                GenericDeadlineMessage.asDeadlineMessage(deadlineName, messageOrPayload, triggerDateTime));
+        String deadlineId = deadlineMessage.getIdentifier();
+
+        SerializedObject<String> scope = serializer.serialize(deadlineScope, String.class);
+        DeadlineEntry entry = new DeadlineEntry(deadlineId, deadlineName, scope.getType()
+                .getName(), scope.getData(), triggerDateTime);
+
+        runOnPrepareCommitOrNow(() -> {
+            // deadline gần: node lên lịch claim luôn, không chờ lần poll kế tiếp
+            boolean claimNow = running && triggerDateTime.isBefore(Instant.now()
+                    .plus(lookAhead));
+            insert(entry, deadlineMessage, claimNow);
+            if (claimNow) {
+                runAfterCommitOrNow(() -> hold(entry));
+            }
+        });
+        return deadlineId;
+    }
+
+    @Override
+    public void cancelSchedule(String deadlineName, String scheduleId) {
+        runOnPrepareCommitOrNow(() -> {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE deadline_name = ? AND id = ?", deadlineName,
+                    scheduleId);
+            claimedDeadlines.remove(scheduleId);
+        });
+    }
+
+    @Override
+    public void cancelAll(String deadlineName) {
+        runOnPrepareCommitOrNow(() -> {
+            jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE deadline_name = ?", deadlineName);
+            claimedDeadlines.values()
+                    .removeIf(entry -> entry.deadlineName()
+                            .equals(deadlineName));
+        });
+    }
+
+    @Override
+    public void cancelAllWithinScope(String deadlineName, ScopeDescriptor scope) {
+        SerializedObject<String> serializedScope = serializer.serialize(scope, String.class);
+        String scopeType = serializedScope.getType()
+                .getName();
+        String scopeData = serializedScope.getData();
+
+        runOnPrepareCommitOrNow(() -> {
+            jdbcTemplate.update(
+                    "DELETE FROM " + TABLE + " WHERE deadline_name = ? AND scope_type = ? AND scope_data = ?",
+                    deadlineName, scopeType, scopeData);
+            claimedDeadlines.values()
+                    .removeIf(entry -> entry.matches(deadlineName, scopeType, scopeData));
+        });
+    }
+
+    @Override
+    public void shutdown() {
+        stop();
+    }
+
+    // ====================== Lifecycle ======================
+
+    @Override
+    public void start() {
+        if (createSchema) {
+            createSchema();
+        }
+
+        AtomicInteger firingThreadCount = new AtomicInteger();
+        firingExecutor = Executors.newFixedThreadPool(fireThreads,
+                r -> new Thread(r, "deadline-fire-" + firingThreadCount.incrementAndGet()));
+        scheduler = Executors.newScheduledThreadPool(2, r -> new Thread(r, "deadline-wheel"));
+        running = true;
+
+        scheduler.scheduleWithFixedDelay(this::pollSafely, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::tickSafely, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("JdbcDeadlineManager started, node {}", nodeId);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        scheduler.shutdownNow();
+        firingExecutor.shutdown();
+        try {
+            if (!firingExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                firingExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+
+        // trả lại các deadline chưa xử lý để node khác claim ngay, không phải chờ hết lease
+        int released = jdbcTemplate.update(
+                "UPDATE " + TABLE + " SET claimed_by = NULL, claimed_until = NULL WHERE claimed_by = ?", nodeId);
+        claimedDeadlines.clear();
+        log.info("JdbcDeadlineManager stopped, released {} deadlines", released);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // khởi động sau, dừng trước các thành phần Axon (saga, aggregate) mà deadline được gửi tới
+        return Integer.MAX_VALUE - 1024;
+    }
+
+    // ====================== Claim & fire ======================
+
+    private void pollSafely() {
+        try {
+            int claimed;
+            do {
+                claimed = claimBatch();
+            } while (running && claimed == claimBatchSize);
+        } catch (Exception e) {
+            log.error("Failed to claim deadlines", e);
+        }
+    }
+
+    /**
+     * Claim một lô deadline đến hạn trong khoảng look-ahead và chưa có node nào giữ (hoặc lease đã hết).
+     */
+    private int claimBatch() {
+        Instant now = Instant.now();
+        List<DeadlineEntry> entries = jdbcTemplate.query("""
+                        UPDATE %1$s SET claimed_by = ?, claimed_until = ?
+                        WHERE id IN (SELECT id FROM %1$s
+                                     WHERE trigger_at <= ? AND (claimed_until IS NULL OR claimed_until < ?)
+                                     ORDER BY trigger_at
+                                     LIMIT ?
+                                     FOR UPDATE SKIP LOCKED)
+                        RETURNING id, deadline_name, scope_type, scope_data, trigger_at
+                        """.formatted(TABLE), ENTRY_MAPPER, nodeId, Timestamp.from(now.plus(lease)),
+                Timestamp.from(now.plus(lookAhead)), Timestamp.from(now), claimBatchSize);
+
+        entries.forEach(this::hold);
+        if (!entries.isEmpty()) {
+            log.debug("Claimed {} deadlines", entries.size());
+        }
+        return entries.size();
+    }
+
+    private void hold(DeadlineEntry entry) {
+        if (claimedDeadlines.putIfAbsent(entry.deadlineId(), entry) == null) {
+            timeWheel.add(entry);
+        }
+    }
+
+    private void tickSafely() {
+        try {
+            List<DeadlineEntry> due = timeWheel.advance(Instant.now())
+                    .stream()
+                    // đã bị huỷ trên node này
+                    .filter(entry -> claimedDeadlines.containsKey(entry.deadlineId()))
+                    .toList();
+
+            for (int from = 0; from < due.size(); from += fireBatchSize) {
+                List<DeadlineEntry> batch = due.subList(from, Math.min(from + fireBatchSize, due.size()));
+                firingExecutor.execute(() -> fireBatch(batch));
+            }
+        } catch (Exception e) {
+            log.error("Failed to advance deadline time wheel", e);
+        }
+    }
+
+    /**
+     * Đọc lại cả lô trong một truy vấn: deadline bị huỷ từ node khác hoặc đã bị node khác claim
+     * sẽ không còn trả về và được bỏ qua.
+     */
+    private void fireBatch(List<DeadlineEntry> batch) {
+        List<String> ids = batch.stream()
+                .map(DeadlineEntry::deadlineId)
+                .toList();
+        try {
+            List<StoredDeadline> deadlines = namedJdbcTemplate.query(
+                    "SELECT * FROM " + TABLE + " WHERE id IN (:ids) AND claimed_by = :nodeId",
+                    new MapSqlParameterSource().addValue("ids", ids)
+                            .addValue("nodeId", nodeId), STORED_MAPPER);
+
+            for (StoredDeadline deadline : deadlines) {
+                if (!running) {
+                    return;
+                }
+                fire(deadline);
+            }
+        } catch (Exception e) {
+            log.error("Failed to load deadlines {}", ids, e);
+        } finally {
+            ids.forEach(claimedDeadlines::remove);
+        }
+    }
+
+    private void fire(StoredDeadline deadline) {
+        DeadlineMessage<?> deadlineMessage;
+        ScopeDescriptor deadlineScope;
+        try {
+            deadlineMessage = toDeadlineMessage(deadline);
+            deadlineScope = serializer.deserialize(
+                    new SimpleSerializedObject<>(deadline.scopeData(), String.class, deadline.scopeType(), null));
+        } catch (Exception e) {
+            handleFailure(deadline, e);
+            return;
+        }
+
+        UnitOfWork<DeadlineMessage<?>> unitOfWork = new DefaultUnitOfWork<>(deadlineMessage);
+        unitOfWork.attachTransaction(transactionManager);
+        // xoá cùng transaction với handler: handler commit thì deadline chắc chắn không chạy lại
+        unitOfWork.onPrepareCommit(uow -> {
+            int deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id = ? AND claimed_by = ?",
+                    deadline.id(), nodeId);
+            if (deleted == 0) {
+                throw new DeadlineCancelledException(deadline.id());
+            }
+        });
+        InterceptorChain chain = new DefaultInterceptorChain<>(unitOfWork, handlerInterceptors(), message -> {
+            executeScheduledDeadline(message, deadlineScope);
+            return null;
+        });
+
+        try {
+            ResultMessage<?> resultMessage = unitOfWork.executeWithResult(chain::proceed);
+            if (resultMessage.isExceptional()) {
+                handleFailure(deadline, resultMessage.exceptionResult());
+            }
+        } catch (DeadlineCancelledException e) {
+            log.debug("Deadline {} was cancelled while being handled", deadline.id());
+        } catch (Exception e) {
+            handleFailure(deadline, e);
+        }
+    }
+
+    private void executeScheduledDeadline(DeadlineMessage<?> deadlineMessage, ScopeDescriptor deadlineScope) {
+        scopeAwareProvider.provideScopeAwareStream(deadlineScope)
+                .filter(scopeAwareComponent -> scopeAwareComponent.canResolve(deadlineScope))
+                .forEach(scopeAwareComponent -> {
+                    try {
+                        scopeAwareComponent.send(deadlineMessage, deadlineScope);
+                    } catch (Exception e) {
+                        throw new DeadlineException(
+                                "Failed to send a DeadlineMessage for scope [" + deadlineScope.scopeDescription()
+                                        + "]", e);
+                    }
+                });
+    }
+
+    /**
+     * Lỗi khi xử lý: trả deadline về bảng để chạy lại sau retry-delay, bỏ hẳn sau max-attempts lần.
+     */
+    private void handleFailure(StoredDeadline deadline, Throwable cause) {
+        int attempts = deadline.attempts() + 1;
+        try {
+            if (attempts >= maxAttempts) {
+                log.error("Deadline {} [{}] failed {} times, dropping it", deadline.deadlineName(), deadline.id(),
+                        attempts, cause);
+                jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE id = ? AND claimed_by = ?", deadline.id(),
+                        nodeId);
+                return;
+            }
+
+            log.warn("Deadline {} [{}] failed (attempt {}/{}), retrying in {}", deadline.deadlineName(),
+                    deadline.id(), attempts, maxAttempts, retryDelay, cause);
+            jdbcTemplate.update("""
+                            UPDATE %s SET attempts = ?, trigger_at = ?, claimed_by = NULL, claimed_until = NULL
+                            WHERE id = ? AND claimed_by = ?
+                            """.formatted(TABLE), attempts, Timestamp.from(Instant.now()
+                    .plus(retryDelay)), deadline.id(), nodeId);
+        } catch (Exception e) {
+            // lease hết hạn thì deadline sẽ được claim lại
+            log.error("Failed to record failure of deadline {}", deadline.id(), e);
+        }
+    }
+
+    // ====================== Persistence ======================
+
+    private void insert(DeadlineEntry entry, DeadlineMessage<?> deadlineMessage, boolean claimNow) {
+        String payloadType = null;
+        String payloadRevision = null;
+        String payloadData = null;
+        if (deadlineMessage.getPayload() != null) {
+            SerializedObject<String> payload = serializer.serialize(deadlineMessage.getPayload(), String.class);
+            payloadType = payload.getType()
+                    .getName();
+            payloadRevision = payload.getType()
+                    .getRevision();
+            payloadData = payload.getData();
+        }
+        String metaData = serializer.serialize(deadlineMessage.getMetaData(), String.class)
+                .getData();
+
+        jdbcTemplate.update("""
+                        INSERT INTO %s (id, deadline_name, scope_type, scope_data, payload_type, payload_revision,
+                                        payload_data, meta_data, trigger_at, attempts, claimed_by, claimed_until)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)
+                        """.formatted(TABLE), entry.deadlineId(), entry.deadlineName(), entry.scopeType(),
+                entry.scopeData(), payloadType, payloadRevision, payloadData, metaData,
+                Timestamp.from(entry.triggerAt()), claimNow ? nodeId : null, claimNow ? Timestamp.from(Instant.now()
+                        .plus(lease)) : null);
+    }
+
+    private DeadlineMessage<?> toDeadlineMessage(StoredDeadline deadline) {
+        Object payload = deadline.payloadType() == null ? null : serializer.deserialize(
+                new SimpleSerializedObject<>(deadline.payloadData(), String.class, deadline.payloadType(),
+                        deadline.payloadRevision()));
+        MetaData metaData = deadline.metaData() == null ? MetaData.emptyInstance() : serializer.deserialize(
+                new SimpleSerializedObject<>(deadline.metaData(), String.class, MetaData.class.getName(), null));
+
+        return new GenericDeadlineMessage<>(deadline.deadlineName(), deadline.id(), payload, metaData,
+                deadline.triggerAt());
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS %1$s (
+                    id               VARCHAR(255) PRIMARY KEY,
+                    deadline_name    VARCHAR(255) NOT NULL,
+                    scope_type       VARCHAR(255) NOT NULL,
+                    scope_data       TEXT         NOT NULL,
+                    payload_type     VARCHAR(255),
+                    payload_revision VARCHAR(255),
+                    payload_data     TEXT,
+                    meta_data        TEXT,
+                    trigger_at       TIMESTAMP WITH TIME ZONE NOT NULL,
+                    attempts         INT          NOT NULL DEFAULT 0,
+                    claimed_by       VARCHAR(64),
+                    claimed_until    TIMESTAMP WITH TIME ZONE
+                );
+                CREATE INDEX IF NOT EXISTS idx_%1$s_trigger_at ON %1$s (trigger_at);
+                CREATE INDEX IF NOT EXISTS idx_%1$s_name_scope ON %1$s (deadline_name, scope_type);
+                CREATE INDEX IF NOT EXISTS idx_%1$s_claimed_by ON %1$s (claimed_by);
+                """.formatted(TABLE));
+    }
+
+    private void runAfterCommitOrNow(Runnable task) {
+        if (CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get()
+                    .afterCommit(uow -> task.run());
+        } else {
+            task.run();
+        }
+    }
+
+    private static final RowMapper<DeadlineEntry> ENTRY_MAPPER = (rs, rowNum) -> new DeadlineEntry(
+            rs.getString("id"), rs.getString("deadline_name"), rs.getString("scope_type"),
+            rs.getString("scope_data"), rs.getTimestamp("trigger_at")
+            .toInstant());
+
+    private static final RowMapper<StoredDeadline> STORED_MAPPER = (rs, rowNum) -> new StoredDeadline(
+            rs.getString("id"), rs.getString("deadline_name"), rs.getString("scope_type"),
+            rs.getString("scope_data"), rs.getString("payload_type"), rs.getString("payload_revision"),
+            rs.getString("payload_data"), rs.getString("meta_data"), rs.getTimestamp("trigger_at")
+            .toInstant(), rs.getInt("attempts"));
+
+    private record StoredDeadline(String id, String deadlineName, String scopeType, String scopeData,
+                                  String payloadType, String payloadRevision, String payloadData, String metaData,
+                                  Instant triggerAt, int attempts) {
+    }
+
+    /**
+     * Deadline đã bị huỷ (hoặc node khác giữ) trong lúc handler đang chạy -> rollback handler
+     */
+    private static class DeadlineCancelledException extends RuntimeException {
+        DeadlineCancelledException(String deadlineId) {
+            super("Deadline " + deadlineId + " is no longer claimed by this node");
+        }
+    }
+}
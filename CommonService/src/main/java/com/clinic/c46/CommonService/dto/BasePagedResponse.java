@@ -20,4 +20,7 @@ public class BasePagedResponse<T> {
     private int size;
     private long total;
     private int totalPages;
+    // Chế độ keyset: con trỏ để lấy trang kế tiếp (null nếu hết dữ liệu); total/totalPages = -1 khi không đếm
+    private String nextCursor;
+    private boolean hasNext;
 }
@@ -0,0 +1,7 @@
+package com.clinic.c46.CommonService.event.staff;
+
+import lombok.Builder;
+
+@Builder
+public record StaffRegisteredEvent(String staffId, String role) {
+}
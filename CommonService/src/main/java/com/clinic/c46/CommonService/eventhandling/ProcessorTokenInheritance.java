@@ -0,0 +1,80 @@
+package com.clinic.c46.CommonService.eventhandling;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventhandling.tokenstore.TokenStore;
+import org.axonframework.eventhandling.tokenstore.UnableToClaimTokenException;
+
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Khởi tạo token cho processor mới tách ra từ processor cũ, trước khi các processor chạy.
+ * <p>
+ * Handler không có @ProcessingGroup nằm trong processor mang tên package. Khi chuyển handler sang
+ * @ProcessingGroup riêng, processor mới chưa có token nên sẽ đọc lại toàn bộ event store vào projection.
+ * Với mỗi cặp processor mới -> processor cũ, nếu processor mới chưa có token thì nó nhận vị trí
+ * hiện tại của processor cũ (vị trí thấp nhất nếu processor cũ có nhiều segment).
+ * <p>
+ * Processor cũ phải đã dừng trên mọi instance (deploy dừng toàn bộ), nếu không token cũ vẫn đang
+ * bị claim và khởi động sẽ lỗi thay vì đọc lại event.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ProcessorTokenInheritance {
+
+    private final TokenStore tokenStore;
+    private final TransactionManager transactionManager;
+    // processor mới -> processor cũ
+    private final Map<String, String> sourceProcessors;
+    // số segment khởi tạo của processor mới
+    private final ToIntFunction<String> initialSegmentCount;
+
+    public void run() {
+        sourceProcessors.forEach((processorName, sourceProcessorName) -> transactionManager.executeInTransaction(
+                () -> inherit(processorName, sourceProcessorName)));
+    }
+
+    private void inherit(String processorName, String sourceProcessorName) {
+        if (tokenStore.fetchSegments(processorName).length > 0) {
+            return;
+        }
+
+        int[] sourceSegments = tokenStore.fetchSegments(sourceProcessorName);
+        if (sourceSegments.length == 0) {
+            log.info("[token-inheritance] Processor {} has no tokens, {} starts from its default position",
+                    sourceProcessorName, processorName);
+            return;
+        }
+
+        TrackingToken token = null;
+        boolean fromStart = false;
+        for (int segment : sourceSegments) {
+            TrackingToken segmentToken;
+            try {
+                segmentToken = tokenStore.fetchToken(sourceProcessorName, segment);
+            } catch (UnableToClaimTokenException e) {
+                throw new IllegalStateException(
+                        "Processor " + sourceProcessorName + " is still running elsewhere, stop it before starting "
+                                + processorName, e);
+            }
+            tokenStore.releaseClaim(sourceProcessorName, segment);
+
+            if (segmentToken == null) {
+                fromStart = true;
+            } else if (!fromStart) {
+                token = token == null ? segmentToken : token.lowerBound(segmentToken);
+            }
+        }
+        if (fromStart) {
+            token = null;
+        }
+
+        int segmentCount = initialSegmentCount.applyAsInt(processorName);
+        tokenStore.initializeTokenSegments(processorName, segmentCount, token);
+        log.info("[token-inheritance] Initialized {} segment(s) of {} at the position of {}: {}", segmentCount,
+                processorName, sourceProcessorName, token);
+    }
+}
@@ -0,0 +1,40 @@
+package com.clinic.c46.CommonService.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Con trỏ keyset: trường/chiều sắp xếp đã dùng khi tạo con trỏ, giá trị trường sắp xếp và id của bản ghi cuối trang,
+ * mã hóa Base64 URL-safe.
+ */
+record KeysetCursor(String sortField, SortDirection sortDir, String sortValue, String id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder()
+            .withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    String encode() {
+        return encodePart(sortField) + "." + sortDir.name() + "." + encodePart(sortValue) + "." + encodePart(id);
+    }
+
+    static KeysetCursor decode(String cursor) {
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        try {
+            return new KeysetCursor(decodePart(parts[0]), SortDirection.valueOf(parts[1]), decodePart(parts[2]),
+                    decodePart(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor, e);
+        }
+    }
+
+    private static String encodePart(String value) {
+        return ENCODER.encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodePart(String value) {
+        return new String(DECODER.decode(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,14 @@
+package com.clinic.c46.CommonService.helper;
+
+import lombok.Builder;
+
+/**
+ * @param cursor    con trỏ nhận từ {@code nextCursor} của trang trước, null/rỗng = trang đầu
+ * @param sortField trường sắp xếp: createdAt (mặc định) hoặc idField
+ * @param idField   trường định danh, dùng làm tie-breaker để thứ tự là duy nhất (mặc định id)
+ * @param withTotal có chạy COUNT(*) để trả về total/totalPages hay không
+ */
+@Builder
+public record KeysetPageRequest(String cursor, int size, String sortField, SortDirection sortDir, String idField,
+                                boolean withTotal) {
+}
@@ -4,6 +4,8 @@ import com.clinic.c46.CommonService.dto.BasePagedResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -15,4 +17,13 @@ public interface PageAndSortHelper {
     Pageable buildPageable(int page, int size, String sortField, SortDirection sortDir);
 
     <T, U, R extends BasePagedResponse<U>> R toPaged(Page<T> page, Function<T, U> mapper, Supplier<R> responseSupplier);
+
+    /**
+     * Phân trang keyset: lọc các bản ghi sau con trỏ theo (sortField, idField) thay vì OFFSET,
+     * lấy size + 1 dòng để biết còn trang sau, chỉ chạy COUNT khi request.withTotal().
+     * Chỉ sắp theo createdAt hoặc idField (cột NOT NULL, có index (created_at, id)); con trỏ ghi lại trường và chiều
+     * sắp xếp, sortField khác hoặc con trỏ dùng với cách sắp xếp khác bị từ chối bằng IllegalArgumentException.
+     */
+    <T, U, R extends BasePagedResponse<U>> R findKeyset(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+            KeysetPageRequest request, Function<T, U> mapper, Supplier<R> responseSupplier);
 }
@@ -1,19 +1,33 @@
 package com.clinic.c46.CommonService.helper;
 
 import com.clinic.c46.CommonService.dto.BasePagedResponse;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 
 @Service
 public class PageAndSortHelperImpl implements PageAndSortHelper {
+    private static final String KEYSET_SORT_FIELD = "createdAt";
+
     @Value("${app.page-size:10}")
     private int defaultPageSize;
 
@@ -41,6 +55,58 @@ public class PageAndSortHelperImpl implements PageAndSortHelper {
         return response;
     }
 
+    @Override
+    public <T, U, R extends BasePagedResponse<U>> R findKeyset(JpaSpecificationExecutor<T> repository,
+            Specification<T> spec, KeysetPageRequest request, Function<T, U> mapper, Supplier<R> responseSupplier) {
+        int safeSize = request.size() > 0 ? request.size() : defaultPageSize;
+        String sortField = request.sortField() == null || request.sortField()
+                .isBlank() ? KEYSET_SORT_FIELD : request.sortField();
+        String idField = request.idField() == null || request.idField()
+                .isBlank() ? "id" : request.idField();
+        SortDirection sortDir = request.sortDir() == null ? SortDirection.ASC : request.sortDir();
+        // chỉ sắp theo cột NOT NULL có index (created_at, id): cột nullable làm con trỏ bỏ sót dòng null,
+        // còn NULLS LAST / IS NULL trong điều kiện không dùng được index
+        if (!sortField.equals(KEYSET_SORT_FIELD) && !sortField.equals(idField)) {
+            throw new IllegalArgumentException(
+                    "Keyset pagination only supports sorting by " + KEYSET_SORT_FIELD + " or " + idField
+                            + ", not " + sortField);
+        }
+
+        // id làm tie-breaker để thứ tự duy nhất, con trỏ không bỏ sót/lặp bản ghi trùng giá trị sortField
+        Sort sort = buildSort(sortField, sortDir);
+        if (!sortField.equals(idField)) {
+            sort = sort.and(buildSort(idField, sortDir));
+        }
+
+        Specification<T> pageSpec = Specification.where(spec)
+                .and(afterCursor(request.cursor(), sortField, idField, sortDir));
+        Sort finalSort = sort;
+        List<T> rows = repository.findBy(pageSpec, q -> q.sortBy(finalSort)
+                .limit(safeSize + 1)
+                .all());
+
+        boolean hasNext = rows.size() > safeSize;
+        List<T> pageRows = hasNext ? rows.subList(0, safeSize) : rows;
+
+        R response = responseSupplier.get();
+        response.setContent(pageRows.stream()
+                .map(mapper)
+                .toList());
+        response.setSize(safeSize);
+        response.setHasNext(hasNext);
+        response.setNextCursor(hasNext ? cursorOf(pageRows.get(pageRows.size() - 1), sortField, idField, sortDir) : null);
+
+        if (request.withTotal()) {
+            long total = repository.count(spec);
+            response.setTotal(total);
+            response.setTotalPages((int) ((total + safeSize - 1) / safeSize));
+        } else {
+            response.setTotal(-1);
+            response.setTotalPages(-1);
+        }
+        return response;
+    }
+
     @Override
     public Sort buildSort(String sortField, SortDirection sortDir) {
         if (sortField == null || sortField.isBlank()) {
@@ -54,4 +120,62 @@ public class PageAndSortHelperImpl implements PageAndSortHelper {
                 .descending() : Sort.by(sortField)
                 .ascending();
     }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private <T> Specification<T> afterCursor(String cursor, String sortField, String idField, SortDirection sortDir) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        KeysetCursor keysetCursor = KeysetCursor.decode(cursor);
+        if (!sortField.equals(keysetCursor.sortField()) || sortDir != keysetCursor.sortDir()) {
+            throw new IllegalArgumentException(
+                    "Page cursor was issued for sort " + keysetCursor.sortField() + " " + keysetCursor.sortDir()
+                            + ", not " + sortField + " " + sortDir + "; restart from the first page");
+        }
+        boolean descending = sortDir.equals(SortDirection.DESC);
+
+        return (root, cq, cb) -> {
+            Path<Comparable> idPath = root.get(idField);
+            Comparable idValue = parseValue(keysetCursor.id(), idPath.getJavaType());
+            Predicate afterId = descending ? cb.lessThan(idPath, idValue) : cb.greaterThan(idPath, idValue);
+            if (sortField.equals(idField)) {
+                return afterId;
+            }
+
+            Path<Comparable> sortPath = root.get(sortField);
+            Comparable sortValue = parseValue(keysetCursor.sortValue(), sortPath.getJavaType());
+            Predicate afterSort = descending ? cb.lessThan(sortPath, sortValue) : cb.greaterThan(sortPath, sortValue);
+
+            return cb.or(afterSort, cb.and(cb.equal(sortPath, sortValue), afterId));
+        };
+    }
+
+    private String cursorOf(Object entity, String sortField, String idField, SortDirection sortDir) {
+        BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(entity);
+        Object sortValue = wrapper.getPropertyValue(sortField);
+        Object idValue = wrapper.getPropertyValue(idField);
+        if (sortValue == null || idValue == null) {
+            throw new IllegalStateException(
+                    "Keyset pagination requires non-null values for '" + sortField + "' and '" + idField + "'");
+        }
+        return new KeysetCursor(sortField, sortDir, sortValue.toString(), idValue.toString()).encode();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable parseValue(String raw, Class<?> type) {
+        try {
+            if (type == String.class) return raw;
+            if (type == LocalDateTime.class) return LocalDateTime.parse(raw);
+            if (type == LocalDate.class) return LocalDate.parse(raw);
+            if (type == Instant.class) return Instant.parse(raw);
+            if (type == Integer.class || type == int.class) return Integer.valueOf(raw);
+            if (type == Long.class || type == long.class) return Long.valueOf(raw);
+            if (type == BigDecimal.class) return new BigDecimal(raw);
+            if (type == UUID.class) return UUID.fromString(raw);
+            if (type.isEnum()) return Enum.valueOf((Class<Enum>) type, raw);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor value: " + raw, e);
+        }
+        throw new IllegalArgumentException("Unsupported keyset sort field type: " + type.getName());
+    }
 }
@@ -0,0 +1,9 @@
+package com.clinic.c46.CommonService.helper;
+
+/**
+ * OFFSET: phân trang theo số trang (LIMIT/OFFSET + COUNT).
+ * KEYSET: phân trang theo con trỏ (seek) - không OFFSET, đếm tổng chỉ khi được yêu cầu.
+ */
+public enum PaginationMode {
+    OFFSET, KEYSET
+}
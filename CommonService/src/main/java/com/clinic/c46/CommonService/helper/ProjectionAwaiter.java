@@ -0,0 +1,14 @@
+package com.clinic.c46.CommonService.helper;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+
+public interface ProjectionAwaiter {
+    /**
+     * Đọc lại dữ liệu vừa ghi (read-your-writes) qua subscription query: query handler trả {@code Optional<R>},
+     * projection emit R cho query đó ngay sau khi lưu view. Future hoàn tất với initial result nếu view đã có,
+     * nếu chưa thì với update đầu tiên; lỗi TimeoutException khi quá timeout. Không chặn thread nào trong lúc chờ.
+     */
+    <Q, R> CompletableFuture<R> await(Q query, Class<R> viewType, Duration timeout);
+}
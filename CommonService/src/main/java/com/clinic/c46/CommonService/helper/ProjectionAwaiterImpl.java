@@ -0,0 +1,36 @@
+package com.clinic.c46.CommonService.helper;
+
+import lombok.RequiredArgsConstructor;
+import org.axonframework.messaging.responsetypes.ResponseTypes;
+import org.axonframework.queryhandling.QueryGateway;
+import org.axonframework.queryhandling.SubscriptionQueryResult;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+
+@Service
+@RequiredArgsConstructor
+public class ProjectionAwaiterImpl implements ProjectionAwaiter {
+
+    private final QueryGateway queryGateway;
+
+    @Override
+    public <Q, R> CompletableFuture<R> await(Q query, Class<R> viewType, Duration timeout) {
+        // update emit trong lúc initial query đang chạy được giữ lại trong buffer của subscription, không bị mất
+        SubscriptionQueryResult<Optional<R>, R> result = queryGateway.subscriptionQuery(query,
+                ResponseTypes.optionalInstanceOf(viewType), ResponseTypes.instanceOf(viewType));
+
+        CompletableFuture<R> projected = new CompletableFuture<>();
+        result.initialResult()
+                .subscribe(initial -> initial.ifPresent(projected::complete), projected::completeExceptionally);
+        result.updates()
+                .subscribe(projected::complete, projected::completeExceptionally);
+
+        return projected.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((view, ex) -> result.close());
+    }
+}
@@ -12,6 +12,12 @@ public interface SpecificationBuilder {
 
     <T> Specification<T> keyword(String keyword, List<String> fields);
 
+    /**
+     * Tìm kiếm không phân biệt dấu: so khớp f_unaccent(lower(field)) với từ khóa đã bỏ dấu.
+     * Cần hàm f_unaccent và GIN pg_trgm index tương ứng trong database.
+     */
+    <T> Specification<T> unaccentKeyword(String keyword, List<String> fields);
+
     <T, V> Specification<T> in(String field, List<V> values);
 
     <T, F extends Comparable<? super F>> Specification<T> fromTo(String field, Class<F> fieldType, F from, F to);
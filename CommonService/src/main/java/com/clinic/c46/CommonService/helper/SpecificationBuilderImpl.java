@@ -2,23 +2,39 @@ package com.clinic.c46.CommonService.helper;
 
 import jakarta.persistence.criteria.*;
 import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
 
 
 @Service
 @NoArgsConstructor
 public class SpecificationBuilderImpl implements SpecificationBuilder {
 
+    private static final String UNACCENT_FUNCTION = "f_unaccent";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // like: lower(field) LIKE %kw%
+    // trigram: f_unaccent(lower(field)) LIKE %kw không dấu% -> dùng được GIN pg_trgm index (xem db/search-indexes.sql)
+    @Value("${app.search.keyword-strategy:like}")
+    private String keywordStrategy = "like";
+
     @Override
     public <T> Specification<T> keyword(String keyword, List<String> fields) {
         if (keyword == null || keyword.isBlank()) {
             return Specification.allOf();
         }
 
+        if ("trigram".equalsIgnoreCase(keywordStrategy)) {
+            return unaccentKeyword(keyword, fields);
+        }
+
         String lowerKeyword = "%" + keyword.toLowerCase() + "%";
 
         return (root, cq, cb) -> {
@@ -32,6 +48,37 @@ public class SpecificationBuilderImpl implements SpecificationBuilder {
     }
 
 
+    @Override
+    public <T> Specification<T> unaccentKeyword(String keyword, List<String> fields) {
+        if (keyword == null || keyword.isBlank()) {
+            return Specification.allOf();
+        }
+
+        String pattern = "%" + unaccent(keyword.toLowerCase(Locale.ROOT)) + "%";
+
+        return (root, cq, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            for (String field : fields) {
+                Expression<String> normalized = cb.function(UNACCENT_FUNCTION, String.class,
+                        cb.lower(root.get(field)));
+                predicates.add(cb.like(normalized, pattern));
+            }
+            return cb.or(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt giống unaccent của PostgreSQL: tách dấu (NFD) rồi bỏ các ký tự dấu, đ -> d.
+     */
+    static String unaccent(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed)
+                .replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D');
+    }
+
     @Override
     public <T, V> Specification<T> in(String field, List<V> values) {
         return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) -> {
@@ -0,0 +1,163 @@
+package com.clinic.c46.CommonService.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.config.Configuration;
+import org.axonframework.config.SagaConfiguration;
+import org.axonframework.eventhandling.EventProcessor;
+import org.axonframework.eventhandling.EventTrackerStatus;
+import org.axonframework.eventhandling.StreamingEventProcessor;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.messaging.Message;
+import org.axonframework.monitoring.MessageMonitor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Supplier;
+
+/**
+ * Metric cho các event processor và saga của service, đọc qua actuator /metrics:
+ * <p>
+ * - {@link EventProcessorMonitor}: thời gian xử lý theo loại event, số event, độ trễ theo thời gian.
+ * - axon.event.processor.position / axon.event.processor.behind: vị trí token thấp nhất trong các segment
+ * instance này đang giữ và số event còn cách head của event store (NaN nếu instance không giữ segment nào).
+ * - axon.event.store.head: vị trí head của event store.
+ * - axon.saga.active: số saga đang mở theo loại saga (đếm trong saga store JPA).
+ * <p>
+ * Head và số saga được đọc lại tối đa một lần mỗi refresh-interval, không phải mỗi lần scrape.
+ */
+@Slf4j
+public class EventProcessorMetrics {
+
+    private final MeterRegistry registry;
+    private final boolean histogram;
+    private final Duration refreshInterval;
+    private final Supplier<EntityManagerProvider> entityManagerProvider;
+
+    private Sampled headPosition;
+
+    public EventProcessorMetrics(MeterRegistry registry, boolean histogram, Duration refreshInterval,
+            Supplier<EntityManagerProvider> entityManagerProvider) {
+        this.registry = registry;
+        this.histogram = histogram;
+        this.refreshInterval = refreshInterval;
+        this.entityManagerProvider = entityManagerProvider;
+    }
+
+    public MessageMonitor<Message<?>> monitor(String processorName) {
+        return new EventProcessorMonitor(registry, processorName, histogram);
+    }
+
+    /**
+     * Đăng ký gauge sau khi các processor đã được tạo.
+     */
+    public void bind(Configuration configuration) {
+        headPosition = new Sampled(() -> position(configuration.eventStore()
+                .createHeadToken()), refreshInterval);
+        Gauge.builder("axon.event.store.head", headPosition, Sampled::get)
+                .description("Global index of the head of the event store")
+                .strongReference(true)
+                .register(registry);
+
+        Map<String, EventProcessor> processors = configuration.eventProcessingConfiguration()
+                .eventProcessors();
+        processors.forEach((name, processor) -> {
+            if (processor instanceof StreamingEventProcessor streaming) {
+                Gauge.builder("axon.event.processor.position", streaming, this::lowestPosition)
+                        .tag("processor", name)
+                        .description("Lowest token position among the segments claimed by this instance")
+                        .strongReference(true)
+                        .register(registry);
+                Gauge.builder("axon.event.processor.behind", streaming, this::eventsBehind)
+                        .tag("processor", name)
+                        .description("Events between the head of the event store and the processor's token")
+                        .strongReference(true)
+                        .register(registry);
+            }
+        });
+
+        for (SagaConfiguration<?> saga : configuration.eventProcessingConfiguration()
+                .sagaConfigurations()) {
+            String sagaType = saga.type()
+                    .getName();
+            Sampled activeSagas = new Sampled(() -> countSagas(sagaType), refreshInterval);
+            Gauge.builder("axon.saga.active", activeSagas, Sampled::get)
+                    .tag("saga", saga.type()
+                            .getSimpleName())
+                    .description("Saga instances not yet ended")
+                    .strongReference(true)
+                    .register(registry);
+        }
+    }
+
+    private double lowestPosition(StreamingEventProcessor processor) {
+        OptionalLong lowest = processor.processingStatus()
+                .values()
+                .stream()
+                .map(EventTrackerStatus::getCurrentPosition)
+                .filter(OptionalLong::isPresent)
+                .mapToLong(OptionalLong::getAsLong)
+                .min();
+        return lowest.isPresent() ? lowest.getAsLong() : Double.NaN;
+    }
+
+    private double eventsBehind(StreamingEventProcessor processor) {
+        double head = headPosition.get();
+        double position = lowestPosition(processor);
+        if (Double.isNaN(head) || Double.isNaN(position)) {
+            return Double.NaN;
+        }
+        return Math.max(0, head - position);
+    }
+
+    private static double position(TrackingToken token) {
+        if (token == null) {
+            return Double.NaN;
+        }
+        OptionalLong position = token.position();
+        return position.isPresent() ? position.getAsLong() : Double.NaN;
+    }
+
+    private double countSagas(String sagaType) {
+        return entityManagerProvider.get()
+                .getEntityManager()
+                .createQuery("SELECT COUNT(e) FROM SagaEntry e WHERE e.sagaType = :sagaType", Long.class)
+                .setParameter("sagaType", sagaType)
+                .getSingleResult();
+    }
+
+    /**
+     * Giá trị đọc lại sau mỗi khoảng interval; lỗi khi đọc cho NaN đến lần đọc sau.
+     */
+    private static final class Sampled {
+
+        private final Supplier<Double> source;
+        private final long intervalNanos;
+        private double value = Double.NaN;
+        private long sampledAt;
+        private boolean sampled;
+
+        private Sampled(Supplier<Double> source, Duration interval) {
+            this.source = source;
+            this.intervalNanos = interval.toNanos();
+        }
+
+        synchronized double get() {
+            long now = System.nanoTime();
+            if (!sampled || now - sampledAt >= intervalNanos) {
+                try {
+                    value = source.get();
+                } catch (RuntimeException e) {
+                    log.debug("[event-processor-metrics] Sampling failed", e);
+                    value = Double.NaN;
+                }
+                sampledAt = now;
+                sampled = true;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.clinic.c46.CommonService.metrics;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.messaging.Message;
+import org.axonframework.monitoring.MessageMonitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MessageMonitor gắn vào một event processor:
+ * - axon.event.processor.handling: thời gian xử lý từng event, tag theo processor, loại event và kết quả
+ * (success / failure); count của timer cho số event/giây.
+ * - axon.event.processor.ignored: số event processor bỏ qua (không có handler), chỉ tag theo processor. Processor
+ * nhận mọi event trong store nên tag theo loại event / timer ở đây sẽ tạo rất nhiều series chỉ để đếm.
+ * - axon.event.processor.lag: độ trễ theo thời gian giữa lúc event được publish và lúc processor nhận nó.
+ */
+public class EventProcessorMonitor implements MessageMonitor<Message<?>> {
+
+    static final String HANDLING_METER = "axon.event.processor.handling";
+    static final String LAG_METER = "axon.event.processor.lag";
+    static final String IGNORED_METER = "axon.event.processor.ignored";
+
+    private final MeterRegistry registry;
+    private final String processorName;
+    private final boolean histogram;
+    private final Clock clock;
+
+    // "event|outcome" -> timer, tránh dựng lại Timer.Builder cho mỗi event
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final Counter ignored;
+
+    public EventProcessorMonitor(MeterRegistry registry, String processorName, boolean histogram) {
+        this.registry = registry;
+        this.processorName = processorName;
+        this.histogram = histogram;
+        this.clock = registry.config()
+                .clock();
+
+        TimeGauge.builder(LAG_METER, lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .tag("processor", processorName)
+                .description("Time between publishing the last event and its ingestion by the processor")
+                .register(registry);
+        this.ignored = Counter.builder(IGNORED_METER)
+                .tag("processor", processorName)
+                .description("Events the processor has no handler for")
+                .register(registry);
+    }
+
+    @Override
+    public MonitorCallback onMessageIngested(Message<?> message) {
+        if (message instanceof EventMessage<?> event) {
+            lagMillis.set(Math.max(0, clock.wallTime() - event.getTimestamp()
+                    .toEpochMilli()));
+        }
+
+        String eventType = message.getPayloadType()
+                .getSimpleName();
+        long start = clock.monotonicTime();
+
+        return new MonitorCallback() {
+            @Override
+            public void reportSuccess() {
+                record(eventType, "success", start);
+            }
+
+            @Override
+            public void reportFailure(Throwable cause) {
+                record(eventType, "failure", start);
+            }
+
+            @Override
+            public void reportIgnored() {
+                ignored.increment();
+            }
+        };
+    }
+
+    private void record(String eventType, String outcome, long start) {
+        timers.computeIfAbsent(eventType + "|" + outcome, key -> Timer.builder(HANDLING_METER)
+                        .tag("processor", processorName)
+                        .tag("event", eventType)
+                        .tag("outcome", outcome)
+                        .publishPercentileHistogram(histogram)
+                        .description("Event handling time per processor and event type")
+                        .register(registry))
+                .record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
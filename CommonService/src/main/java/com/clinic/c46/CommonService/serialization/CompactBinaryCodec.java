@@ -0,0 +1,486 @@
+package com.clinic.c46.CommonService.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mã hoá luồng token JSON (đúng các token Jackson sinh ra, kể cả thông tin kiểu của default typing)
+ * thành dạng nhị phân gọn, không dựng cây JsonNode trung gian:
+ * <ul>
+ *     <li>số: zigzag varint / IEEE 754 thay vì chữ số thập phân, BigDecimal giữ nguyên scale</li>
+ *     <li>chuỗi dạng UUID (mã định danh khắp hệ thống): 16 byte thay vì 36 ký tự</li>
+ *     <li>tên field và type id của default typing có trong {@link CompactDictionary}: id varint. Chuỗi dữ liệu
+ *     luôn ghi nguyên văn, kể cả khi trùng một tên trong từ điển</li>
+ *     <li>chuỗi lặp lại trong cùng message (tên field trong list object, giá trị enum...) chỉ ghi một lần,
+ *     các lần sau là chỉ số tham chiếu</li>
+ * </ul>
+ * Payload bắt đầu bằng MAGIC (phân biệt với payload JSON cũ, luôn bắt đầu bằng ký tự ASCII), VERSION và version
+ * của từ điển lúc ghi. Gặp id mà từ điển của service đọc chưa có (CommonService cũ hơn bên ghi) thì báo lỗi
+ * thay vì đoán tên.
+ */
+public final class CompactBinaryCodec {
+
+    static final byte MAGIC = (byte) 0xC4;
+    static final byte VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BIG_INTEGER = 6;
+    private static final byte DECIMAL = 7;
+    private static final byte BINARY = 8;
+    private static final byte STRING = 9;
+    private static final byte STRING_REF = 10;
+    private static final byte REGISTERED = 11;
+    private static final byte UUID = 12;
+    private static final byte START_OBJECT = 13;
+    private static final byte END_OBJECT = 14;
+    private static final byte START_ARRAY = 15;
+    private static final byte END_ARRAY = 16;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final CompactDictionary dictionary;
+
+    public CompactBinaryCodec(CompactDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    public static boolean isCompact(byte[] data) {
+        return data.length >= 2 && data[0] == MAGIC;
+    }
+
+    /**
+     * Mã hoá toàn bộ token còn lại của parser (thường là TokenBuffer vừa được ObjectMapper ghi vào).
+     */
+    public byte[] write(JsonParser tokens) throws IOException {
+        Writer writer = new Writer();
+        writer.writeByte(MAGIC);
+        writer.writeByte(VERSION);
+        writer.writeVarInt(dictionary.version());
+
+        JsonToken previous = null;
+        JsonToken token;
+        while ((token = tokens.nextToken()) != null) {
+            writer.writeToken(token, previous, tokens);
+            previous = token;
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Phát lại các token đã mã hoá vào generator (thường là TokenBuffer để ObjectMapper đọc tiếp).
+     */
+    public void read(byte[] data, JsonGenerator out) throws IOException {
+        if (!isCompact(data)) {
+            throw new IllegalArgumentException("Data is not in compact binary format");
+        }
+        if (data[1] != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact binary format version " + data[1]);
+        }
+        new Reader(data).readTo(out);
+    }
+
+    // ====================== Writer ======================
+
+    private final class Writer {
+        private byte[] buffer = new byte[256];
+        private int position;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        void writeToken(JsonToken token, JsonToken previous, JsonParser parser) throws IOException {
+            switch (token) {
+                case START_OBJECT -> writeByte(START_OBJECT);
+                case END_OBJECT -> writeByte(END_OBJECT);
+                case START_ARRAY -> writeByte(START_ARRAY);
+                case END_ARRAY -> writeByte(END_ARRAY);
+                case FIELD_NAME -> writeName(parser.currentName());
+                case VALUE_STRING -> {
+                    if (previous == JsonToken.START_ARRAY && isTypeId(parser.getText())) {
+                        writeName(parser.getText());
+                    } else {
+                        writeString(parser.getText());
+                    }
+                }
+                case VALUE_NUMBER_INT -> writeInteger(parser);
+                case VALUE_NUMBER_FLOAT -> writeFloatingPoint(parser);
+                case VALUE_TRUE -> writeByte(TRUE);
+                case VALUE_FALSE -> writeByte(FALSE);
+                case VALUE_NULL -> writeByte(NULL);
+                case VALUE_EMBEDDED_OBJECT -> writeEmbedded(parser.getEmbeddedObject());
+                default -> throw new IllegalArgumentException("Unsupported token " + token);
+            }
+        }
+
+        private void writeInteger(JsonParser parser) throws IOException {
+            if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                writeByte(BIG_INTEGER);
+                writeRawString(parser.getBigIntegerValue()
+                        .toString());
+            } else {
+                writeByte(INT);
+                writeVarLong(zigZag(parser.getLongValue()));
+            }
+        }
+
+        private void writeFloatingPoint(JsonParser parser) throws IOException {
+            switch (parser.getNumberType()) {
+                case FLOAT -> {
+                    writeByte(FLOAT);
+                    writeFixedInt(Float.floatToIntBits(parser.getFloatValue()));
+                }
+                case DOUBLE -> {
+                    writeByte(DOUBLE);
+                    writeFixedLong(Double.doubleToLongBits(parser.getDoubleValue()));
+                }
+                default -> {
+                    writeByte(DECIMAL);
+                    writeRawString(parser.getDecimalValue()
+                            .toString());
+                }
+            }
+        }
+
+        private void writeEmbedded(Object value) {
+            if (value == null) {
+                writeByte(NULL);
+            } else if (value instanceof byte[] bytes) {
+                writeByte(BINARY);
+                writeVarInt(bytes.length);
+                writeBytes(bytes);
+            } else {
+                writeString(value.toString());
+            }
+        }
+
+        /**
+         * Tên field hoặc type id: dùng id của từ điển nếu có, không thì ghi như chuỗi thường.
+         */
+        private void writeName(String name) {
+            Integer id = dictionary.idOf(name);
+            if (id == null) {
+                writeString(name);
+                return;
+            }
+            writeByte(REGISTERED);
+            writeVarInt(id);
+        }
+
+        private void writeString(String value) {
+            if (isCanonicalUuid(value)) {
+                writeByte(UUID);
+                writeFixedLong(parseHex(value, 0, 8) << 32 | parseHex(value, 9, 13) << 16 | parseHex(value, 14, 18));
+                writeFixedLong(parseHex(value, 19, 23) << 48 | parseHex(value, 24, 36));
+                return;
+            }
+
+            Integer reference = strings.get(value);
+            if (reference != null) {
+                writeByte(STRING_REF);
+                writeVarInt(reference);
+                return;
+            }
+
+            strings.put(value, strings.size());
+            writeByte(STRING);
+            writeRawString(value);
+        }
+
+        private void writeRawString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeFixedInt(int value) {
+            ensureCapacity(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeFixedLong(long value) {
+            writeFixedInt((int) (value >>> 32));
+            writeFixedInt((int) value);
+        }
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            buffer[position++] = value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    // ====================== Reader ======================
+
+    private final class Reader {
+        private final byte[] data;
+        private int position = 2;
+        private final int dictionaryVersion;
+        private final List<String> strings = new ArrayList<>();
+
+        // mỗi mức lồng: đang trong object hay array, và (nếu object) token kế tiếp có phải tên field không
+        private boolean[] inObject = new boolean[16];
+        private boolean[] expectName = new boolean[16];
+        private int depth;
+
+        Reader(byte[] data) {
+            this.data = data;
+            this.dictionaryVersion = readVarInt();
+        }
+
+        void readTo(JsonGenerator out) throws IOException {
+            while (position < data.length) {
+                byte tag = data[position++];
+
+                if (depth > 0 && expectName[depth - 1]) {
+                    if (tag == END_OBJECT) {
+                        out.writeEndObject();
+                        leave();
+                    } else {
+                        out.writeFieldName(readString(tag));
+                        expectName[depth - 1] = false;
+                    }
+                    continue;
+                }
+
+                switch (tag) {
+                    case START_OBJECT -> {
+                        out.writeStartObject();
+                        enter(true);
+                    }
+                    case START_ARRAY -> {
+                        out.writeStartArray();
+                        enter(false);
+                    }
+                    case END_ARRAY -> {
+                        out.writeEndArray();
+                        leave();
+                    }
+                    default -> {
+                        writeScalar(tag, out);
+                        valueCompleted();
+                    }
+                }
+            }
+        }
+
+        private void enter(boolean object) {
+            if (depth == inObject.length) {
+                inObject = Arrays.copyOf(inObject, depth * 2);
+                expectName = Arrays.copyOf(expectName, depth * 2);
+            }
+            inObject[depth] = object;
+            expectName[depth] = object;
+            depth++;
+        }
+
+        private void leave() {
+            depth--;
+            valueCompleted();
+        }
+
+        private void valueCompleted() {
+            // giá trị của một field vừa xong -> token kế tiếp lại là tên field
+            if (depth > 0 && inObject[depth - 1]) {
+                expectName[depth - 1] = true;
+            }
+        }
+
+        private void writeScalar(byte tag, JsonGenerator out) throws IOException {
+            switch (tag) {
+                case NULL -> out.writeNull();
+                case FALSE -> out.writeBoolean(false);
+                case TRUE -> out.writeBoolean(true);
+                case INT -> {
+                    long value = unZigZag(readVarLong());
+                    if (value == (int) value) {
+                        out.writeNumber((int) value);
+                    } else {
+                        out.writeNumber(value);
+                    }
+                }
+                case DOUBLE -> out.writeNumber(Double.longBitsToDouble(readFixedLong()));
+                case FLOAT -> out.writeNumber(Float.intBitsToFloat(readFixedInt()));
+                case BIG_INTEGER -> out.writeNumber(new BigInteger(readRawString()));
+                case DECIMAL -> out.writeNumber(new BigDecimal(readRawString()));
+                case BINARY -> {
+                    int length = readVarInt();
+                    out.writeBinary(Arrays.copyOfRange(data, position, position + length));
+                    position += length;
+                }
+                default -> out.writeString(readString(tag));
+            }
+        }
+
+        private String readString(byte tag) throws IOException {
+            return switch (tag) {
+                case STRING -> {
+                    String value = readRawString();
+                    strings.add(value);
+                    yield value;
+                }
+                case STRING_REF -> strings.get(readVarInt());
+                case REGISTERED -> {
+                    int id = readVarInt();
+                    String name = dictionary.nameOf(id);
+                    if (name == null) {
+                        throw new IOException("Compact payload written with dictionary version " + dictionaryVersion
+                                + " uses entry #" + id + ", this service only has version " + dictionary.version()
+                                + "; update CommonService");
+                    }
+                    yield name;
+                }
+                case UUID -> formatUuid(readFixedLong(), readFixedLong());
+                default -> throw new IllegalArgumentException(
+                        "Expected a string but found tag " + tag + " at position " + (position - 1));
+            };
+        }
+
+        private String readRawString() {
+            int length = readVarInt();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = data[position++];
+                value |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while ((current & 0x80) != 0);
+            return value;
+        }
+
+        private int readFixedInt() {
+            int value = ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16)
+                    | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        private long readFixedLong() {
+            return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+        }
+    }
+
+    /**
+     * Với WRAPPER_ARRAY của default typing, type id là chuỗi đầu tiên của mảng và luôn là tên class đầy đủ.
+     * Chuỗi dữ liệu đứng đầu một mảng chỉ bị coi là type id khi trùng đúng một tên class trong từ điển,
+     * và vẫn được giải mã lại đúng chuỗi đó.
+     */
+    private static boolean isTypeId(String value) {
+        return value.indexOf('.') > 0;
+    }
+
+    // ====================== UUID ======================
+
+    /**
+     * Chỉ nhận UUID chữ thường đúng dạng chuẩn (như UUID.toString()), để giải mã ra đúng chuỗi ban đầu.
+     */
+    private static boolean isCanonicalUuid(String value) {
+        if (value.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = value.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseHex(String value, int from, int to) {
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            result = (result << 4) | (c <= '9' ? c - '0' : c - 'a' + 10);
+        }
+        return result;
+    }
+
+    private static String formatUuid(long mostSignificant, long leastSignificant) {
+        char[] chars = new char[36];
+        appendHex(chars, 0, mostSignificant >>> 32, 8);
+        chars[8] = '-';
+        appendHex(chars, 9, mostSignificant >>> 16, 4);
+        chars[13] = '-';
+        appendHex(chars, 14, mostSignificant, 4);
+        chars[18] = '-';
+        appendHex(chars, 19, leastSignificant >>> 48, 4);
+        chars[23] = '-';
+        appendHex(chars, 24, leastSignificant, 12);
+        return new String(chars);
+    }
+
+    private static void appendHex(char[] chars, int offset, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
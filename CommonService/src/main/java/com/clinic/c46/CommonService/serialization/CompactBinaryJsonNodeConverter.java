@@ -0,0 +1,48 @@
+package com.clinic.c46.CommonService.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.axonframework.serialization.CannotConvertBetweenTypesException;
+import org.axonframework.serialization.ContentTypeConverter;
+
+import java.io.IOException;
+
+/**
+ * byte[] -> JsonNode cho cả payload nhị phân gọn lẫn JSON cũ, dùng bởi upcaster và UnknownSerializedType.
+ */
+public class CompactBinaryJsonNodeConverter implements ContentTypeConverter<byte[], JsonNode> {
+
+    private final CompactBinaryCodec codec;
+    private final ObjectMapper objectMapper;
+
+    public CompactBinaryJsonNodeConverter(CompactBinaryCodec codec, ObjectMapper objectMapper) {
+        this.codec = codec;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Class<byte[]> expectedSourceType() {
+        return byte[].class;
+    }
+
+    @Override
+    public Class<JsonNode> targetType() {
+        return JsonNode.class;
+    }
+
+    @Override
+    public JsonNode convert(byte[] original) {
+        try {
+            if (!CompactBinaryCodec.isCompact(original)) {
+                return objectMapper.readTree(original);
+            }
+            try (TokenBuffer tokens = new TokenBuffer(objectMapper, false)) {
+                codec.read(original, tokens);
+                return objectMapper.readTree(tokens.asParser());
+            }
+        } catch (IOException e) {
+            throw new CannotConvertBetweenTypesException("An error occurred while converting a JsonNode", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.clinic.c46.CommonService.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.axonframework.serialization.ChainingConverter;
+import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.UnknownSerializedType;
+import org.axonframework.serialization.json.JacksonSerializer;
+
+import java.io.IOException;
+
+/**
+ * Serializer ghi payload dạng nhị phân gọn ({@link CompactBinaryCodec}) khi Axon yêu cầu byte[]
+ * (Axon Server, saga store, token store), các dạng khác (String, JsonNode) vẫn là JSON.
+ * <p>
+ * Luồng token vẫn do ObjectMapper của JacksonSerializer bọc bên trong tạo ra (default typing, lenient...)
+ * và được ghi vào TokenBuffer thay vì text, chỉ khác cách ghi ra byte, nên kiểu dữ liệu đọc lại giống hệt khi dùng JSON.
+ * <p>
+ * Đọc: payload bắt đầu bằng MAGIC được giải mã nhị phân, còn lại là JSON cũ và được chuyển cho JacksonSerializer,
+ * không cần migrate dữ liệu đã có. Converter byte[] -> JsonNode hiểu cả hai dạng nên upcaster viết trên JsonNode
+ * áp dụng được cho event JSON cũ lẫn event nhị phân mới.
+ */
+public class CompactBinarySerializer implements Serializer {
+
+    private final JacksonSerializer jsonSerializer;
+    private final ObjectMapper objectMapper;
+    private final CompactBinaryCodec codec;
+
+    public CompactBinarySerializer(JacksonSerializer jsonSerializer, CompactBinaryCodec codec) {
+        this.jsonSerializer = jsonSerializer;
+        this.objectMapper = jsonSerializer.getObjectMapper();
+        this.codec = codec;
+
+        if (jsonSerializer.getConverter() instanceof ChainingConverter chainingConverter) {
+            // converter đăng ký sau được ưu tiên hơn converter byte[] -> JsonNode mặc định của Jackson
+            chainingConverter.registerConverter(new CompactBinaryJsonNodeConverter(codec, objectMapper));
+        }
+    }
+
+    @Override
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        if (object == null || !byte[].class.equals(expectedRepresentation)) {
+            return jsonSerializer.serialize(object, expectedRepresentation);
+        }
+
+        try (TokenBuffer tokens = new TokenBuffer(objectMapper, false)) {
+            objectMapper.writeValue(tokens, object);
+            return new SimpleSerializedObject<>(expectedRepresentation.cast(codec.write(tokens.asParser())),
+                    expectedRepresentation, typeForClass(object.getClass()));
+        } catch (IOException e) {
+            throw new SerializationException("Unable to serialize object to compact binary format", e);
+        }
+    }
+
+    @Override
+    public <T> boolean canSerializeTo(Class<T> expectedRepresentation) {
+        return jsonSerializer.canSerializeTo(expectedRepresentation);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        if (!(serializedObject.getData() instanceof byte[] data) || !CompactBinaryCodec.isCompact(data)) {
+            return jsonSerializer.deserialize(serializedObject);
+        }
+        if (SerializedType.isEmptyType(serializedObject.getType())) {
+            return null;
+        }
+
+        Class<?> type = classForType(serializedObject.getType());
+        if (UnknownSerializedType.class.isAssignableFrom(type)) {
+            return (T) new UnknownSerializedType(this, serializedObject);
+        }
+
+        try (TokenBuffer tokens = new TokenBuffer(objectMapper, false)) {
+            codec.read(data, tokens);
+            if (JsonNode.class.equals(type)) {
+                return (T) objectMapper.readTree(tokens.asParser());
+            }
+            return (T) objectMapper.readerFor(type)
+                    .readValue(tokens.asParser());
+        } catch (IOException e) {
+            throw new SerializationException("Error while deserializing compact payload of type " + type.getName(),
+                    e);
+        }
+    }
+
+    @Override
+    public Class classForType(SerializedType type) {
+        return jsonSerializer.classForType(type);
+    }
+
+    @Override
+    public SerializedType typeForClass(Class type) {
+        return jsonSerializer.typeForClass(type);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return jsonSerializer.getConverter();
+    }
+}
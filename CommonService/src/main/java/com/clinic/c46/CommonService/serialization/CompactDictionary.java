@@ -0,0 +1,81 @@
+package com.clinic.c46.CommonService.serialization;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng tên class / tên field -> id dùng trong {@link CompactBinaryCodec}, nạp từ {@value #RESOURCE}
+ * đóng gói cùng CommonService, nên mọi service cùng bản CommonService có cùng một bảng.
+ * <p>
+ * Id là số thứ tự của tên trong file. File chỉ được thêm vào cuối: tên của class/field đã đổi tên hay đã xoá
+ * vẫn giữ nguyên dòng của nó, nên payload cũ luôn giải mã ra đúng tên đã ghi và upcaster JsonNode khớp được
+ * tên cũ. Số tên là version của từ điển và được ghi vào đầu mỗi payload.
+ */
+@Slf4j
+public final class CompactDictionary {
+
+    public static final String RESOURCE = "serialization/compact-dictionary.txt";
+
+    private final List<String> names;
+    private final Map<String, Integer> ids;
+
+    public CompactDictionary(List<String> names) {
+        this.names = List.copyOf(names);
+        this.ids = new HashMap<>(names.size() * 2);
+        for (int id = 0; id < this.names.size(); id++) {
+            Integer existing = ids.putIfAbsent(this.names.get(id), id);
+            if (existing != null) {
+                throw new IllegalArgumentException(
+                        "Duplicate compact dictionary entry " + this.names.get(id) + " at #" + existing + " and #" + id);
+            }
+        }
+    }
+
+    public static CompactDictionary load() {
+        ClassLoader classLoader = CompactDictionary.class.getClassLoader();
+        try (InputStream in = classLoader.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Compact dictionary " + RESOURCE + " not found on the classpath");
+            }
+            List<String> names = new ArrayList<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    names.add(line);
+                }
+            }
+            CompactDictionary dictionary = new CompactDictionary(names);
+            log.info("Compact dictionary loaded, version {}", dictionary.version());
+            return dictionary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read compact dictionary " + RESOURCE, e);
+        }
+    }
+
+    public Integer idOf(String name) {
+        return ids.get(name);
+    }
+
+    /**
+     * @return tên của id, null nếu id thuộc bản từ điển mới hơn bản service này đang có
+     */
+    public String nameOf(int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : null;
+    }
+
+    public int version() {
+        return names.size();
+    }
+}
@@ -0,0 +1,142 @@
+package com.clinic.c46.CommonService.serialization;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.axonframework.serialization.json.JacksonSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactBinarySerializerTest {
+
+    private static final List<String> DICTIONARY_V1 = List.of("java.util.ArrayList", "visitId", "patientName",
+            "status", "email", "tags", "price");
+
+    private static final List<String> DICTIONARY_V2 = append(DICTIONARY_V1, "fullName");
+
+    public record Visit(String visitId, String patientName, String status, List<String> tags, BigDecimal price) {
+    }
+
+    public record RenamedVisit(String visitId, String fullName) {
+    }
+
+    @Test
+    void shippedDictionaryLoads() {
+        CompactDictionary dictionary = CompactDictionary.load();
+
+        assertThat(dictionary.version()).isPositive();
+        assertThat(dictionary.nameOf(0)).isEqualTo("java.util.ArrayList");
+        assertThat(dictionary.idOf("java.util.ArrayList")).isZero();
+    }
+
+    @Test
+    void roundTripsCompactPayload() {
+        CompactBinarySerializer serializer = compactSerializer(DICTIONARY_V1);
+        Visit visit = new Visit(UUID.randomUUID()
+                .toString(), "Nguyễn Văn A", "WAITING", new ArrayList<>(List.of("a", "b")), new BigDecimal("150.00"));
+
+        SerializedObject<byte[]> serialized = serializer.serialize(visit, byte[].class);
+
+        assertThat(CompactBinaryCodec.isCompact(serialized.getData())).isTrue();
+        assertThat((Visit) serializer.deserialize(serialized)).isEqualTo(visit);
+    }
+
+    @Test
+    void readsLegacyJsonPayload() {
+        JacksonSerializer jsonSerializer = jsonSerializer();
+        Visit visit = new Visit("v-1", "Trần Thị B", "DONE", new ArrayList<>(List.of("x")), new BigDecimal("1.5"));
+        SerializedObject<byte[]> legacy = jsonSerializer.serialize(visit, byte[].class);
+
+        CompactBinarySerializer serializer = compactSerializer(DICTIONARY_V1);
+
+        assertThat((Visit) serializer.deserialize(legacy)).isEqualTo(visit);
+        JsonNode node = serializer.getConverter()
+                .convert(legacy.getData(), byte[].class, JsonNode.class);
+        assertThat(node.get("patientName")
+                .asText()).isEqualTo("Trần Thị B");
+    }
+
+    @Test
+    void writesStringValuesEqualToDictionaryNamesAsText() {
+        CompactBinarySerializer serializer = compactSerializer(DICTIONARY_V1);
+        // giá trị trùng tên field trong từ điển, kể cả khi đứng đầu một mảng
+        Visit visit = new Visit("visitId", "email", "status", new ArrayList<>(List.of("patientName", "tags")),
+                BigDecimal.ONE);
+
+        byte[] data = serializer.serialize(visit, byte[].class)
+                .getData();
+        String raw = new String(data, StandardCharsets.ISO_8859_1);
+
+        assertThat(raw).contains("visitId", "email", "status", "patientName", "tags");
+        // một bản từ điển khác (vd. đã thêm tên mới) không làm đổi giá trị
+        assertThat((Visit) compactSerializer(DICTIONARY_V2).deserialize(
+                new SimpleSerializedObject<>(data, byte[].class, serializer.typeForClass(Visit.class)))).isEqualTo(visit);
+    }
+
+    @Test
+    void upcastsRenamedFieldFromOldPayload() {
+        byte[] oldPayload = compactSerializer(DICTIONARY_V1).serialize(
+                        new Visit("v-2", "Lê Văn C", "WAITING", new ArrayList<>(), BigDecimal.TEN), byte[].class)
+                .getData();
+
+        // field patientName đổi thành fullName: từ điển chỉ thêm tên mới, tên cũ vẫn giữ id
+        CompactBinarySerializer serializer = compactSerializer(DICTIONARY_V2);
+        ObjectNode node = (ObjectNode) serializer.getConverter()
+                .convert(oldPayload, byte[].class, JsonNode.class);
+        assertThat(node.has("patientName")).isTrue();
+
+        node.set("fullName", node.remove("patientName"));
+        RenamedVisit upcasted = serializer.deserialize(
+                new SimpleSerializedObject<>(node, JsonNode.class, serializer.typeForClass(RenamedVisit.class)));
+
+        assertThat(upcasted).isEqualTo(new RenamedVisit("v-2", "Lê Văn C"));
+    }
+
+    @Test
+    void rejectsPayloadFromNewerDictionary() {
+        byte[] newPayload = compactSerializer(DICTIONARY_V2).serialize(new RenamedVisit("v-3", "Phạm D"),
+                        byte[].class)
+                .getData();
+
+        CompactBinarySerializer serializer = compactSerializer(DICTIONARY_V1);
+
+        assertThatThrownBy(() -> serializer.deserialize(new SimpleSerializedObject<>(newPayload, byte[].class,
+                serializer.typeForClass(RenamedVisit.class)))).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void rejectsDuplicateDictionaryEntries() {
+        assertThatThrownBy(() -> new CompactDictionary(append(DICTIONARY_V1, "status"))).isInstanceOf(
+                IllegalArgumentException.class);
+    }
+
+    private static CompactBinarySerializer compactSerializer(List<String> dictionary) {
+        return new CompactBinarySerializer(jsonSerializer(),
+                new CompactBinaryCodec(new CompactDictionary(dictionary)));
+    }
+
+    private static JacksonSerializer jsonSerializer() {
+        return JacksonSerializer.builder()
+                .objectMapper(new ObjectMapper())
+                .defaultTyping()
+                .lenientDeserialization()
+                .build();
+    }
+
+    private static List<String> append(List<String> names, String name) {
+        List<String> appended = new ArrayList<>(names);
+        appended.add(name);
+        return appended;
+    }
+}
@@ -6,12 +6,11 @@ import com.clinic.c46.CommonService.command.payment.CreateInvoiceCommand;
 import com.clinic.c46.CommonService.event.examination.ExaminationCompletedEvent;
 import com.clinic.c46.CommonService.event.examination.ExaminationCreatedEvent;
 import com.clinic.c46.CommonService.event.payment.InvoiceCreatedEvent;
-import com.clinic.c46.CommonService.exception.ResourceNotFoundException;
+import com.clinic.c46.CommonService.dto.AppointmentDetailsDto;
 import com.clinic.c46.CommonService.query.appointment.GetAppointmentByPatientIdAndDateQuery;
-import com.clinic.c46.CommonService.query.examinationFlow.GetQueueSizeQuery;
 import com.clinic.c46.ExaminationFlowService.application.dto.ServiceRepDto;
-import com.clinic.c46.ExaminationFlowService.application.query.GetAllServicesOfPackagesQuery;
-import com.clinic.c46.ExaminationFlowService.application.service.websocket.WebSocketNotifier;
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.PackageServiceIndex;
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.ServiceRepLookup;
 import com.clinic.c46.ExaminationFlowService.domain.aggregate.QueueItemAggregate;
 import com.clinic.c46.ExaminationFlowService.domain.aggregate.QueueItemType;
 import com.clinic.c46.ExaminationFlowService.domain.command.CompleteMedicalFormCommand;
@@ -22,6 +21,7 @@ import com.clinic.c46.ExaminationFlowService.domain.event.QueueItemCompletedEven
 import com.clinic.c46.ExaminationFlowService.domain.event.QueueItemCreatedEvent;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -41,14 +41,18 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
-@Saga
+@Saga(sagaStore = "clinicWorkFlowSagaStore")
 @Slf4j
 @NoArgsConstructor
 @Getter
 @Setter
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class ClinicWorkFlowProcessingSaga {
+    private static final Duration APPOINTMENT_QUERY_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SERVICE_DEPARTMENT_RETRY_DELAY = Duration.ofMinutes(1);
+
     @Autowired
     @JsonIgnore
     private transient CommandGateway commandGateway;
@@ -57,18 +61,24 @@ public class ClinicWorkFlowProcessingSaga {
     private transient QueryGateway queryGateway;
     @Autowired
     @JsonIgnore
-    private transient WebSocketNotifier wSNotifier;
+    private transient DeadlineManager deadlineManager;
     @Autowired
     @JsonIgnore
-    private transient DeadlineManager deadlineManager;
+    private transient ServiceRepLookup serviceRepLookup;
+    @Autowired
+    @JsonIgnore
+    private transient PackageServiceIndex packageServiceIndex;
 
     private String medicalFormId;
     private String patientId;
     private String invoiceId;
     private String examinationId;
     private String queueItemProcessingId;
-    // TRONG PHẦN KHAI BÁO BIẾN
-    private PriorityQueue<ServiceRepDto> requestServiceSorted = new PriorityQueue<>();
+    // Chỉ giữ mã dịch vụ theo thứ tự processingPriority để trạng thái saga lưu/đọc ở mỗi bước luôn nhỏ
+    private List<String> pendingServiceIds = new ArrayList<>();
+    // serviceId -> departmentId chụp lúc tạo phiếu khám: dịch vụ bị xoá hoặc bản sao chưa đồng bộ
+    // giữa chừng lượt khám không làm hỏng bước kế tiếp
+    private Map<String, String> serviceDepartments = new HashMap<>();
     // KHỞI TẠO SET NÀY!
     private Set<String> completedServices = new HashSet<>();
 
@@ -84,73 +94,74 @@ public class ClinicWorkFlowProcessingSaga {
         this.patientId = event.patientId();
         this.invoiceId = event.invoiceId();
         this.examinationId = event.examinationId();
-        // Get all service requested
-        List<ServiceRepDto> services;
-        try {
-            services = extractServicesOfAllPackages(event.packageIds());
-            this.requestServiceSorted.addAll(services);
-        } catch (ResourceNotFoundException e) {
+        // Get all service requested (index cục bộ gói khám -> dịch vụ, không qua query bus)
+        Optional<List<String>> serviceIds = packageServiceIndex.findServiceIdsByPriority(event.packageIds());
+        if (serviceIds.isEmpty() || serviceIds.get()
+                .isEmpty()) {
             // This is a business error, not a technical error
             log.warn("[ExamWorkFlowProcessingSaga] No services found for package IDs {}. Ending Saga.",
                     event.packageIds());
             SagaLifecycle.end();
             return;
         }
-
-        // Find appointment by patientId and today's date to get snapshotPrice
-        BigDecimal snapshotPrice = null;
-        try {
-            GetAppointmentByPatientIdAndDateQuery appointmentQuery = GetAppointmentByPatientIdAndDateQuery.builder()
-                    .patientId(this.patientId)
-                    .date(LocalDate.now())
-                    .build();
-
-            Optional<com.clinic.c46.CommonService.dto.AppointmentDetailsDto> appointmentOpt =
-                    queryGateway.query(appointmentQuery,
-                            ResponseTypes.optionalInstanceOf(com.clinic.c46.CommonService.dto.AppointmentDetailsDto.class))
-                    .join();
-
-            if (appointmentOpt.isPresent()) {
-                snapshotPrice = appointmentOpt.get().getSnapshotPrice();
-                log.info("[ClinicWorkFlowProcessingSaga] Found appointment for patientId: {} on date: {}, snapshotPrice: {}",
-                        this.patientId, LocalDate.now(), snapshotPrice);
-            } else {
-                log.warn("[ClinicWorkFlowProcessingSaga] No appointment found for patientId: {} on date: {}",
-                        this.patientId, LocalDate.now());
-            }
-        } catch (Exception e) {
-            log.error("[ClinicWorkFlowProcessingSaga] Error querying appointment for patientId: {}, date: {}",
-                    this.patientId, LocalDate.now(), e);
-        }
+        enqueue(serviceIds.get());
 
         // Send command to create Invoice
         SagaLifecycle.associateWith("invoiceId", this.invoiceId);
-        CreateInvoiceCommand invoiceCommand = CreateInvoiceCommand.builder()
-                .invoiceId(this.invoiceId)
-                .medicalFormId(this.medicalFormId)
-                .snapshotPrice(snapshotPrice)
+        requestInvoice();
+        setCreateInvoiceDeadline();
+    }
+
+    /**
+     * Lấy snapshotPrice từ lịch hẹn hôm nay của bệnh nhân (BookingService) rồi gửi CreateInvoiceCommand.
+     * Truy vấn chạy bất đồng bộ để handler không giữ luồng của saga processor; callback chỉ dùng
+     * giá trị đã chụp lại, không sửa trạng thái saga. Không có lịch hẹn hoặc lỗi/timeout thì gửi với giá null.
+     */
+    private void requestInvoice() {
+        String invoiceId = this.invoiceId;
+        String medicalFormId = this.medicalFormId;
+        String patientId = this.patientId;
+        LocalDate today = LocalDate.now();
+
+        GetAppointmentByPatientIdAndDateQuery appointmentQuery = GetAppointmentByPatientIdAndDateQuery.builder()
+                .patientId(patientId)
+                .date(today)
                 .build();
 
-        this.sendCmd(invoiceCommand);
-        log.info("[ClinicWorkFlowProcessingSaga] Sent CreateInvoiceCommand for invoiceId: {}, medicalFormId: {}",
-                this.invoiceId, this.medicalFormId);
-    }
+        queryGateway.query(appointmentQuery, ResponseTypes.optionalInstanceOf(AppointmentDetailsDto.class))
+                .orTimeout(APPOINTMENT_QUERY_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.error("[ClinicWorkFlowProcessingSaga] Error querying appointment for patientId: {}, date: {}",
+                            patientId, today, e);
+                    return Optional.empty();
+                })
+                .thenAccept(appointmentOpt -> {
+                    BigDecimal snapshotPrice = appointmentOpt.map(AppointmentDetailsDto::getSnapshotPrice)
+                            .orElse(null);
+                    if (appointmentOpt.isPresent()) {
+                        log.info("[ClinicWorkFlowProcessingSaga] Found appointment for patientId: {} on date: {}, snapshotPrice: {}",
+                                patientId, today, snapshotPrice);
+                    } else {
+                        log.warn("[ClinicWorkFlowProcessingSaga] No appointment found for patientId: {} on date: {}",
+                                patientId, today);
+                    }
 
-    public List<ServiceRepDto> extractServicesOfAllPackages(Set<String> packageIds) throws ResourceNotFoundException {
-        log.warn(" ++++++++++ Extracting services for package IDs: {}", packageIds);
-        List<ServiceRepDto> services = queryGateway.query(GetAllServicesOfPackagesQuery.builder()
-                .packageIds(packageIds)
-                .build(), ResponseTypes.multipleInstancesOf(ServiceRepDto.class))
-                .join();
-        if (services.isEmpty()) {
-            throw new ResourceNotFoundException("No package's services found for IDs: " + packageIds);
-        }
-        return services;
+                    CreateInvoiceCommand invoiceCommand = CreateInvoiceCommand.builder()
+                            .invoiceId(invoiceId)
+                            .medicalFormId(medicalFormId)
+                            .snapshotPrice(snapshotPrice)
+                            .build();
+
+                    this.sendCmd(invoiceCommand);
+                    log.info("[ClinicWorkFlowProcessingSaga] Sent CreateInvoiceCommand for invoiceId: {}, medicalFormId: {}",
+                            invoiceId, medicalFormId);
+                });
     }
 
     @SagaEventHandler(associationProperty = "invoiceId")
     public void handle(InvoiceCreatedEvent event) {
         this.stateMachine = ClinicWorkFlowProcessingStateMachine.INVOICE_CREATED;
+        clearCreateInvoiceDeadline();
         // Send command add Create Examination: patientId, examinationId
         SagaLifecycle.associateWith("examinationId", this.examinationId);
         CreateExaminationCommand examCommand = CreateExaminationCommand.builder()
@@ -185,9 +196,7 @@ public class ClinicWorkFlowProcessingSaga {
         this.stateMachine = ClinicWorkFlowProcessingStateMachine.QUEUE_ITEM_CREATED;
         debugTrace(event);
         clearCreateQueueItemDeadline();
-        Long qSize = queryGateway.query(new GetQueueSizeQuery(event.queueId()), ResponseTypes.instanceOf(Long.class))
-                .join();
-        wSNotifier.broadcast(event.queueId(), qSize);
+        // Kích thước hàng đợi do QueueProjector broadcast (gộp theo cửa sổ thời gian)
     }
 
     @SagaEventHandler(associationProperty = "queueItemId")
@@ -216,43 +225,44 @@ public class ClinicWorkFlowProcessingSaga {
             return;
         }
 
-        ServiceRepDto serviceRepDto = this.requestServiceSorted.poll();
+        this.pendingServiceIds.remove(event.serviceId());
 
-        log.warn("Processed service: {}", serviceRepDto.serviceId());
+        log.warn("Processed service: {}", event.serviceId());
 
-        this.completedServices.add(serviceRepDto.serviceId());
+        this.completedServices.add(event.serviceId());
 
         processNextServiceOrPayment();
     }
 
     private void processNextServiceOrPayment() {
         // Dịch vụ vừa xử lý xong không phải là PAYMENT_REQUEST-> tiếp tục
-        if (this.requestServiceSorted.isEmpty()) // Nếu hàng đợi rỗng -> đầy vào hàng đợi thanh toán.
+        if (this.pendingServiceIds.isEmpty()) // Nếu hàng đợi rỗng -> đầy vào hàng đợi thanh toán.
         {
-            // TODO: đầy vào hàng đợi thanh toán.
-            ServiceRepDto paymentService = ServiceRepDto.builder()
-                    .serviceId("PAYMENT_REQUEST")
-                    .name("PAYMENT_REQUEST")
-                    .departmentId(QueueItemAggregate.RECEPTION_QUEUE_ID)
-                    .processingPriority(9999)
-                    .build();
-            this.requestServiceSorted.add(paymentService);
+            this.pendingServiceIds.add("PAYMENT_REQUEST");
         }
 
-        ServiceRepDto serviceToProcess = this.requestServiceSorted.peek();
-        log.warn("Next service: {}", serviceToProcess.serviceId());
+        String serviceToProcess = this.pendingServiceIds.get(0);
+        log.warn("Next service: {}", serviceToProcess);
+        Optional<String> queueId = resolveQueueId(serviceToProcess);
+        if (queueId.isEmpty()) {
+            // Không ném lỗi: saga processor chỉ có một segment, handler lỗi sẽ chặn luồng của mọi bệnh nhân
+            log.error("[ClinicWorkFlowProcessingSaga] No department for service {} of medical form {}, retrying in {}",
+                    serviceToProcess, this.medicalFormId, SERVICE_DEPARTMENT_RETRY_DELAY);
+            deadlineManager.schedule(SERVICE_DEPARTMENT_RETRY_DELAY, "service-department-retry");
+            return;
+        }
         this.queueItemProcessingId = UUID.randomUUID()
                 .toString();
         SagaLifecycle.associateWith("queueItemId", this.queueItemProcessingId);
 
         // Xác định type dựa trên serviceId
-        QueueItemType queueItemType = determineQueueItemType(serviceToProcess.serviceId());
+        QueueItemType queueItemType = determineQueueItemType(serviceToProcess);
 
         CreateQueueItemCommand cmd = CreateQueueItemCommand.builder()
                 .queueItemId(queueItemProcessingId)
                 .medicalFormId(this.medicalFormId)
-                .serviceId(serviceToProcess.serviceId())
-                .queueId(serviceToProcess.departmentId())
+                .serviceId(serviceToProcess)
+                .queueId(queueId.get())
                 .type(queueItemType)
                 .build();
 
@@ -261,6 +271,65 @@ public class ClinicWorkFlowProcessingSaga {
         setCreateQueueItemDeadline(cmd);
     }
 
+    /**
+     * Hàng đợi (phòng ban) của dịch vụ: thanh toán vào quầy lễ tân, dịch vụ khám lấy phòng ban đã chụp
+     * lúc tạo phiếu; saga cũ hoặc dịch vụ chưa có trong bản sao lúc đó thì tra lại ServiceRepView.
+     */
+    private Optional<String> resolveQueueId(String serviceId) {
+        if ("PAYMENT_REQUEST".equals(serviceId)) {
+            return Optional.of(QueueItemAggregate.RECEPTION_QUEUE_ID);
+        }
+        String departmentId = this.serviceDepartments.get(serviceId);
+        if (departmentId != null) {
+            return Optional.of(departmentId);
+        }
+        return serviceRepLookup.findById(serviceId)
+                .map(ServiceRepDto::departmentId);
+    }
+
+    @DeadlineHandler(deadlineName = "service-department-retry")
+    public void onServiceDepartmentRetry() {
+        processNextServiceOrPayment();
+    }
+
+    /**
+     * Sắp mã dịch vụ theo processingPriority (ổn định với dịch vụ cùng độ ưu tiên),
+     * bỏ trùng khi nhiều gói khám có chung một dịch vụ.
+     */
+    private void enqueueByPriority(Collection<ServiceRepDto> services) {
+        services.stream()
+                .sorted()
+                .filter(service -> !this.pendingServiceIds.contains(service.serviceId()))
+                .forEach(service -> {
+                    this.pendingServiceIds.add(service.serviceId());
+                    if (service.departmentId() != null) {
+                        this.serviceDepartments.put(service.serviceId(), service.departmentId());
+                    }
+                });
+    }
+
+    private void enqueue(List<String> serviceIds) {
+        serviceIds.stream()
+                .filter(serviceId -> !this.pendingServiceIds.contains(serviceId))
+                .forEach(serviceId -> {
+                    this.pendingServiceIds.add(serviceId);
+                    serviceRepLookup.findById(serviceId)
+                            .map(ServiceRepDto::departmentId)
+                            .ifPresent(departmentId -> this.serviceDepartments.put(serviceId, departmentId));
+                });
+    }
+
+    /**
+     * Saga tạo trước khi đổi sang pendingServiceIds lưu nguyên hàng đợi ServiceRepDto:
+     * chỉ giữ lại mã dịch vụ khi đọc từ saga store.
+     */
+    @JsonProperty(value = "requestServiceSorted", access = JsonProperty.Access.WRITE_ONLY)
+    private void restoreLegacyServiceQueue(Collection<ServiceRepDto> services) {
+        if (services != null) {
+            enqueueByPriority(services);
+        }
+    }
+
     /**
      * Xác định loại hàng đợi dựa trên serviceId
      */
@@ -304,6 +373,22 @@ public class ClinicWorkFlowProcessingSaga {
         deadlineManager.cancelAllWithinScope("queue-item-timeout");
     }
 
+    // Lệnh tạo hoá đơn gửi từ callback bất đồng bộ, nếu instance dừng trước khi gửi thì gửi lại khi hết hạn
+    @DeadlineHandler(deadlineName = "invoice-create-timeout")
+    public void onInvoiceTimeout() {
+        log.warn("[ExamWorkFlowProcessingSaga] Deadline triggered for Invoice: {}. RETRYING...", this.invoiceId);
+        requestInvoice();
+        setCreateInvoiceDeadline();
+    }
+
+    private void setCreateInvoiceDeadline() {
+        deadlineManager.schedule(Duration.ofMinutes(5), "invoice-create-timeout");
+    }
+
+    private void clearCreateInvoiceDeadline() {
+        deadlineManager.cancelAllWithinScope("invoice-create-timeout");
+    }
+
     @SagaEventHandler(associationProperty = "examinationId")
     public void handle(ExaminationCompletedEvent event) {
         log.info("[ClinicWorkFlowProcessingSaga] Examination completed: {}. Completing medical form.",
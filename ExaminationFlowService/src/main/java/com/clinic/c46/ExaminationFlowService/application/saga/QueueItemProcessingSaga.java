@@ -3,7 +3,6 @@ package com.clinic.c46.ExaminationFlowService.application.saga;
 import com.clinic.c46.CommonService.event.examination.ResultAddedEvent;
 import com.clinic.c46.CommonService.event.payment.TransactionCompletedEvent;
 import com.clinic.c46.CommonService.exception.ResourceNotFoundException;
-import com.clinic.c46.CommonService.query.examinationFlow.GetQueueSizeQuery;
 import com.clinic.c46.ExaminationFlowService.application.dto.MedicalFormWithExamDetailsDto;
 import com.clinic.c46.ExaminationFlowService.application.dto.MedicalFormWithInvoiceDetailsDto;
 import com.clinic.c46.ExaminationFlowService.application.dto.QueueItemResponse;
@@ -139,7 +138,6 @@ public class QueueItemProcessingSaga {
 
             // Notify staff
             wSNotifier.sendToUser(event.staffId(), queueItem);
-            wSNotifier.broadcast(event.queueId(), getQueueSize(event.queueId()));
 
             // Setup associations for exam flow
             if (queueItem.medicalForm()
@@ -221,7 +219,6 @@ public class QueueItemProcessingSaga {
 
             // Notify staff
             wSNotifier.sendToUser(event.staffId(), queueItem);
-            wSNotifier.broadcast(event.queueId(), getQueueSize(event.queueId()));
 
             this.stateMachine = QueueItemProcessingStateMachine.WAITING_FOR_PAYMENT;
 
@@ -347,19 +344,6 @@ public class QueueItemProcessingSaga {
         return opt.orElseThrow(() -> new ResourceNotFoundException(message));
     }
 
-    private Long getQueueSize(String queueId) {
-        try {
-            log.debug("[QueueItemProcessingSaga] Getting queue size for queueId={}", queueId);
-            Long size = queryGateway.query(new GetQueueSizeQuery(queueId), ResponseTypes.instanceOf(Long.class))
-                    .join();
-            log.debug("[QueueItemProcessingSaga] Queue size: {} for queueId={}", size, queueId);
-            return size;
-        } catch (Exception e) {
-            log.warn("[QueueItemProcessingSaga] Error getting queue size: {}", e.getMessage());
-            return 0L;
-        }
-    }
-
     private void handleException(Throwable throwable) {
         log.warn("[QueueItemProcessingSaga] Exception in state {}: {}", this.stateMachine, throwable.getMessage());
         log.warn("[QueueItemProcessingSaga] Exception class: {}", throwable.getClass()
@@ -0,0 +1,11 @@
+package com.clinic.c46.ExaminationFlowService.application.service.queue;
+
+/**
+ * Báo cho phòng chờ "take next" của mọi instance rằng hàng đợi vừa có item mới.
+ * Triển khai được chọn theo websocket.broker.mode: "simple" gọi thẳng phòng chờ trong JVM,
+ * "redis" phát qua Redis pub/sub để bác sĩ đang chờ ở node khác cũng được đánh thức.
+ */
+public interface QueueEnqueuedSignal {
+
+    void publish(String queueId);
+}
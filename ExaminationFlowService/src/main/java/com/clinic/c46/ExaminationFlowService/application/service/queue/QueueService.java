@@ -8,7 +8,25 @@ import java.util.concurrent.CompletableFuture;
 
 public interface QueueService {
 
-    void requestGetQueueItem(String doctorId, String queueId);
+    /**
+     * Request the next item of a queue for a doctor.
+     * When the queue is empty and {@code waitIfEmpty} is set, the request is parked and
+     * fulfilled as soon as an item is enqueued instead of replying "not found".
+     * The parked request belongs to the WebSocket session {@code sessionId}.
+     */
+    void requestGetQueueItem(String doctorId, String sessionId, String queueId, boolean waitIfEmpty);
+
+    /**
+     * Hand a newly enqueued item of the queue to the longest waiting doctor parked on this instance, if any.
+     * Called on every instance through {@link QueueEnqueuedSignal}; a woken doctor that loses the item to a doctor
+     * of another instance is parked again instead of receiving an error.
+     */
+    void onItemEnqueued(String queueId);
+
+    /**
+     * Drop the doctor's parked request if it was sent from {@code sessionId}.
+     */
+    void cancelWaiting(String doctorId, String sessionId);
 
     CompletableFuture<Void> requestAdditionalServices(String doctorId, String queueItemId,
             Set<String> additionalServiceIds);
@@ -1,20 +1,24 @@
 package com.clinic.c46.ExaminationFlowService.application.service.queue;
 
 import com.clinic.c46.CommonService.exception.ResourceNotFoundException;
-import com.clinic.c46.CommonService.query.staff.ExistsStaffByIdQuery;
 import com.clinic.c46.ExaminationFlowService.application.dto.QueueItemDto;
 import com.clinic.c46.ExaminationFlowService.application.dto.QueueItemResponse;
 import com.clinic.c46.ExaminationFlowService.application.query.*;
+
 import com.clinic.c46.ExaminationFlowService.application.service.websocket.WebSocketNotifier;
 import com.clinic.c46.ExaminationFlowService.domain.command.ApproveAdditionalServicesCommand;
 import com.clinic.c46.ExaminationFlowService.domain.command.TakeNextItemCommand;
+import com.clinic.c46.ExaminationFlowService.domain.exception.TakeItemConflictException;
 import lombok.RequiredArgsConstructor;
 import org.axonframework.commandhandling.CommandExecutionException;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -27,44 +31,94 @@ public class QueueServiceImpl implements QueueService {
     private final CommandGateway commandGateway;
     private final QueryGateway queryGateway;
     private final WebSocketNotifier webSocketNotifier;
+    private final QueueWaitingRoom queueWaitingRoom;
+    private final StaffExistenceCache staffExistenceCache;
 
-    @Override
-    public void requestGetQueueItem(String doctorId, String queueId) {
-
-        if (isStaffExisted(doctorId)) {
-            handleException(doctorId, new ResourceNotFoundException("Mã nhân viên"));
-            return;
-        }
+    @Value("${queue.take-next.wait-timeout-seconds:300}")
+    private long waitTimeoutSeconds;
 
-        Boolean isStaffInProcess = queryGateway.query(new ExistProcessingItemQuery(doctorId), Boolean.class)
-                .join();
-
-        if (Boolean.TRUE.equals(isStaffInProcess)) {
-            handleException(doctorId, new IllegalStateException("Bạn đang có một hồ sơ khác cần xử lý!"));
-            return;
-        }
+    @Override
+    public void requestGetQueueItem(String doctorId, String sessionId, String queueId, boolean waitIfEmpty) {
+        takeNext(doctorId, sessionId, queueId, waitIfEmpty, null);
+    }
 
-        Optional<String> itemId = queryGateway.query(new GetItemIdOfTopQueueQuery(queueId),
-                ResponseTypes.optionalInstanceOf(String.class))
-                .join();
+    /**
+     * @param woken bác sĩ được đánh thức từ phòng chờ, null nếu là yêu cầu trực tiếp từ client
+     */
+    private void takeNext(String doctorId, String sessionId, String queueId, boolean waitIfEmpty,
+            QueueWaitingRoom.Waiter woken) {
+
+        // Ba truy vấn độc lập nhau -> gửi song song, không chặn thread của caller
+        CompletableFuture<Boolean> staffExisted = staffExistenceCache.exists(doctorId);
+        CompletableFuture<Boolean> staffInProcess = queryGateway.query(new ExistProcessingItemQuery(doctorId),
+                Boolean.class);
+        CompletableFuture<Optional<String>> topItemId = queryGateway.query(new GetItemIdOfTopQueueQuery(queueId),
+                ResponseTypes.optionalInstanceOf(String.class));
+
+        CompletableFuture.allOf(staffExisted, staffInProcess, topItemId)
+                .thenCompose(ignored -> {
+                    // Các future đã hoàn thành, join() không chặn
+                    if (!staffExisted.join()) {
+                        throw new ResourceNotFoundException("Mã nhân viên");
+                    }
+                    if (Boolean.TRUE.equals(staffInProcess.join())) {
+                        throw new IllegalStateException("Bạn đang có một hồ sơ khác cần xử lý!");
+                    }
 
-        if (itemId.isEmpty()) {
-            handleException(doctorId, new ResourceNotFoundException("Bệnh nhân đang chờ"));
-            return;
-        }
+                    Optional<String> itemId = topItemId.join();
+                    if (itemId.isEmpty()) {
+                        if (waitIfEmpty) {
+                            queueWaitingRoom.park(doctorId, sessionId, queueId);
+                            webSocketNotifier.notifyWaitingToUser(doctorId, queueId);
+                            // Item vào hàng đợi giữa lúc đọc đầu hàng đợi và lúc park thì pollNext khi đó
+                            // chưa thấy ai chờ -> đọc lại đầu hàng đợi sau khi park để không lỡ lần đánh thức đó
+                            return queryGateway.query(new GetItemIdOfTopQueueQuery(queueId),
+                                            ResponseTypes.optionalInstanceOf(String.class))
+                                    .thenAccept(head -> head.ifPresent(headItemId -> onItemEnqueued(queueId)));
+                        }
+                        throw new ResourceNotFoundException("Bệnh nhân đang chờ");
+                    }
 
-        commandGateway.send(new TakeNextItemCommand(itemId.get(), doctorId))
+                    return commandGateway.send(new TakeNextItemCommand(itemId.get(), doctorId));
+                })
                 .whenComplete((result, throwable) -> {
-                    if (throwable != null) {
-                        handleException(doctorId, throwable);
+                    if (throwable == null) {
+                        return;
                     }
+                    // Mỗi instance đánh thức một bác sĩ cho cùng item đầu hàng đợi, chỉ một người lấy được.
+                    // Người thua vẫn đang chờ: đưa lại vào phòng chờ thay vì báo lỗi; QueueItemTakenEvent của
+                    // người thắng sẽ đánh thức lại nếu hàng đợi còn item.
+                    if (woken != null && isTakeConflict(throwable)) {
+                        queueWaitingRoom.repark(woken);
+                        return;
+                    }
+                    handleException(doctorId, throwable);
                 });
     }
 
+    @Override
+    public void onItemEnqueued(String queueId) {
+        queueWaitingRoom.pollNext(queueId)
+                .ifPresent(waiter -> takeNext(waiter.staffId(), waiter.sessionId(), queueId, true, waiter));
+    }
+
+    @Override
+    public void cancelWaiting(String doctorId, String sessionId) {
+        queueWaitingRoom.leave(doctorId, sessionId);
+    }
+
+    @Scheduled(fixedDelayString = "${queue.take-next.sweep-interval-ms:10000}")
+    public void expireWaitingRequests() {
+        queueWaitingRoom.removeExpired(Duration.ofSeconds(waitTimeoutSeconds))
+                .forEach(waiter -> handleException(waiter.staffId(),
+                        new ResourceNotFoundException("Bệnh nhân đang chờ")));
+    }
+
     @Override
     public CompletableFuture<Void> requestAdditionalServices(String doctorId, String queueItemId,
             Set<String> additionalServiceIds) {
-        if (isStaffExisted(doctorId)) {
+        if (!staffExistenceCache.exists(doctorId)
+                .join()) {
             throw new ResourceNotFoundException("Mã nhân viên");
         }
 
@@ -101,12 +155,13 @@ public class QueueServiceImpl implements QueueService {
 
     }
 
-    private boolean isStaffExisted(String staffId) {
-        Boolean isStaffExisted = queryGateway.query(new ExistsStaffByIdQuery(staffId),
-                ResponseTypes.instanceOf(Boolean.class))
-                .join();
-
-        return Boolean.FALSE.equals(isStaffExisted);
+    private static boolean isTakeConflict(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TakeItemConflictException) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void handleException(String staffId, Throwable throwable) {
@@ -0,0 +1,104 @@
+package com.clinic.c46.ExaminationFlowService.application.service.queue;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Danh sách bác sĩ đang chờ bệnh nhân theo từng hàng đợi (long-poll "take next").
+ * <p>
+ * Thay vì client gửi lại yêu cầu liên tục khi hàng đợi rỗng, yêu cầu được giữ ở đây
+ * và được xử lý lại ngay khi có item mới vào hàng đợi. Mỗi bác sĩ chỉ chờ ở một hàng đợi,
+ * thứ tự phục vụ là FIFO. Yêu cầu gắn với session WebSocket đã gửi nó, để session khác của
+ * cùng bác sĩ ngắt kết nối không hủy yêu cầu đang chờ.
+ */
+@Component
+public class QueueWaitingRoom {
+
+    private final Map<String, Deque<Waiter>> waitersByQueue = new HashMap<>();
+    private final Map<String, Waiter> waiterByStaff = new HashMap<>();
+
+    public synchronized void park(String staffId, String sessionId, String queueId) {
+        leave(staffId);
+        Waiter waiter = new Waiter(staffId, sessionId, queueId, Instant.now());
+        waiterByStaff.put(staffId, waiter);
+        waitersByQueue.computeIfAbsent(queueId, k -> new ArrayDeque<>())
+                .addLast(waiter);
+    }
+
+    /**
+     * Đưa bác sĩ vừa được đánh thức trở lại đầu hàng chờ (giữ thời điểm park ban đầu) khi item được đánh thức
+     * đã bị bác sĩ khác lấy trước. Bỏ qua nếu bác sĩ đã park một yêu cầu mới trong lúc đó.
+     */
+    public synchronized void repark(Waiter waiter) {
+        if (waiterByStaff.putIfAbsent(waiter.staffId(), waiter) != null) {
+            return;
+        }
+        waitersByQueue.computeIfAbsent(waiter.queueId(), k -> new ArrayDeque<>())
+                .addFirst(waiter);
+    }
+
+    /**
+     * Lấy bác sĩ chờ lâu nhất của hàng đợi (nếu có) và xóa khỏi danh sách chờ.
+     */
+    public synchronized Optional<Waiter> pollNext(String queueId) {
+        Deque<Waiter> waiters = waitersByQueue.get(queueId);
+        if (waiters == null) {
+            return Optional.empty();
+        }
+        Waiter waiter = waiters.pollFirst();
+        if (waiters.isEmpty()) {
+            waitersByQueue.remove(queueId);
+        }
+        if (waiter == null) {
+            return Optional.empty();
+        }
+        waiterByStaff.remove(waiter.staffId());
+        return Optional.of(waiter);
+    }
+
+    /**
+     * Bỏ yêu cầu đang chờ của bác sĩ nếu nó được gửi từ session này.
+     */
+    public synchronized void leave(String staffId, String sessionId) {
+        Waiter waiter = waiterByStaff.get(staffId);
+        if (waiter != null && waiter.sessionId()
+                .equals(sessionId)) {
+            leave(staffId);
+        }
+    }
+
+    private void leave(String staffId) {
+        Waiter waiter = waiterByStaff.remove(staffId);
+        if (waiter == null) {
+            return;
+        }
+        Deque<Waiter> waiters = waitersByQueue.get(waiter.queueId());
+        if (waiters != null) {
+            waiters.remove(waiter);
+            if (waiters.isEmpty()) {
+                waitersByQueue.remove(waiter.queueId());
+            }
+        }
+    }
+
+    /**
+     * Xóa và trả về các yêu cầu đã chờ quá thời gian cho phép.
+     */
+    public synchronized List<Waiter> removeExpired(Duration timeout) {
+        Instant deadline = Instant.now()
+                .minus(timeout);
+        List<Waiter> expired = waiterByStaff.values()
+                .stream()
+                .filter(waiter -> waiter.parkedAt()
+                        .isBefore(deadline))
+                .toList();
+        expired.forEach(waiter -> leave(waiter.staffId()));
+        return expired;
+    }
+
+    public record Waiter(String staffId, String sessionId, String queueId, Instant parkedAt) {
+    }
+}
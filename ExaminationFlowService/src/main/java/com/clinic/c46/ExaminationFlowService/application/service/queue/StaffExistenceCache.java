@@ -0,0 +1,79 @@
+package com.clinic.c46.ExaminationFlowService.application.service.queue;
+
+import com.clinic.c46.CommonService.query.staff.ExistsStaffByIdQuery;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.axonframework.messaging.responsetypes.ResponseTypes;
+import org.axonframework.queryhandling.QueryGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index trong bộ nhớ các mã nhân viên đang tồn tại.
+ * <p>
+ * Nguồn dữ liệu là bảng staff_rep (StaffRepViewProjector cập nhật theo event từ StaffService),
+ * nên kiểm tra nhân viên phần lớn chỉ là một phép tra hash. Mã chưa có trong index được tra ở bảng staff_rep;
+ * chỉ khi bảng chưa có dòng của nhân viên (nhân viên tạo trước khi có bản sao) mới hỏi StaffService qua
+ * ExistsStaffByIdQuery. Kết quả "có" được ghi nhớ.
+ * <p>
+ * Chỉ instance giữ segment "staff-rep" nhận StaffRemovedEvent, nên mỗi mã hết hạn sau
+ * staff.existence-cache.expire-after-write-minutes và được đọc lại từ bảng staff_rep (dùng chung mọi instance),
+ * thay vì coi nhân viên đã xoá là còn tồn tại mãi. StaffService ngừng hoạt động không chặn việc kiểm tra.
+ */
+@Component
+public class StaffExistenceCache {
+
+    private final QueryGateway queryGateway;
+    private final StaffRepLookup staffRepLookup;
+
+    private final Cache<String, Boolean> knownStaffIds;
+
+    public StaffExistenceCache(QueryGateway queryGateway, StaffRepLookup staffRepLookup,
+            @Value("${staff.existence-cache.expire-after-write-minutes:10}") long expireAfterWriteMinutes) {
+        this.queryGateway = queryGateway;
+        this.staffRepLookup = staffRepLookup;
+        this.knownStaffIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    public CompletableFuture<Boolean> exists(String staffId) {
+        if (knownStaffIds.getIfPresent(staffId) != null) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        Optional<Boolean> active = staffRepLookup.isActive(staffId);
+        if (active.isPresent()) {
+            if (active.get()) {
+                knownStaffIds.put(staffId, Boolean.TRUE);
+            }
+            return CompletableFuture.completedFuture(active.get());
+        }
+
+        return queryGateway.query(new ExistsStaffByIdQuery(staffId), ResponseTypes.instanceOf(Boolean.class))
+                .thenApply(existed -> {
+                    if (Boolean.TRUE.equals(existed)) {
+                        knownStaffIds.put(staffId, Boolean.TRUE);
+                        return true;
+                    }
+                    return false;
+                });
+    }
+
+    public void add(String staffId) {
+        knownStaffIds.put(staffId, Boolean.TRUE);
+    }
+
+    public void addAll(Collection<String> staffIds) {
+        staffIds.forEach(this::add);
+    }
+
+    public void remove(String staffId) {
+        knownStaffIds.invalidate(staffId);
+    }
+}
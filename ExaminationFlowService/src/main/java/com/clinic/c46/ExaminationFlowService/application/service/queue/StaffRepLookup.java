@@ -0,0 +1,15 @@
+package com.clinic.c46.ExaminationFlowService.application.service.queue;
+
+import java.util.Optional;
+
+/**
+ * Tra cứu nhân viên trên bản sao cục bộ (bảng staff_rep do StaffRepViewProjector cập nhật),
+ * không đi qua query bus.
+ */
+public interface StaffRepLookup {
+
+    /**
+     * @return true nếu nhân viên còn hoạt động, false nếu đã bị xoá, rỗng nếu bản sao chưa có dòng của nhân viên
+     */
+    Optional<Boolean> isActive(String staffId);
+}
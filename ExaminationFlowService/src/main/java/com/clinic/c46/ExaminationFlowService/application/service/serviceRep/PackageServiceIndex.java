@@ -0,0 +1,33 @@
+package com.clinic.c46.ExaminationFlowService.application.service.serviceRep;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Index trong bộ nhớ gói khám -> dịch vụ, cùng độ ưu tiên xử lý của từng dịch vụ.
+ * <p>
+ * PackageRepViewProjector và ServiceRepViewProjector cập nhật index theo event, sau khi transaction của
+ * projector commit; gói chưa có trong index (vừa khởi động, projector chưa tới, hoặc mục đã hết hạn)
+ * được nạp từ bản sao medical_package_rep.
+ */
+public interface PackageServiceIndex {
+
+    /**
+     * Mã dịch vụ của các gói, sắp theo processingPriority và bỏ trùng.
+     * Rỗng nếu có gói không tồn tại.
+     */
+    Optional<List<String>> findServiceIdsByPriority(Set<String> packageIds);
+
+    /**
+     * Ghi đè danh sách dịch vụ của gói, serviceId -> processingPriority.
+     */
+    void putPackage(String packageId, Map<String, Integer> servicePriorities);
+
+    void removePackage(String packageId);
+
+    void putServicePriority(String serviceId, int processingPriority);
+
+    void removeService(String serviceId);
+}
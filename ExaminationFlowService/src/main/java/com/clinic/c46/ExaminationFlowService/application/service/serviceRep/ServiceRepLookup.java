@@ -0,0 +1,14 @@
+package com.clinic.c46.ExaminationFlowService.application.service.serviceRep;
+
+import com.clinic.c46.ExaminationFlowService.application.dto.ServiceRepDto;
+
+import java.util.Optional;
+
+/**
+ * Tra cứu dịch vụ khám trên bản sao cục bộ (bảng medical_service_rep do ServiceRepViewProjector cập nhật),
+ * không đi qua query bus.
+ */
+public interface ServiceRepLookup {
+
+    Optional<ServiceRepDto> findById(String serviceId);
+}
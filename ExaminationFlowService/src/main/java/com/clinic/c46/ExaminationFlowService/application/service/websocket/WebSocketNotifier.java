@@ -7,6 +7,14 @@ public interface WebSocketNotifier {
 
     void notifyErrorToUser(String staffId, String errorMessage);
 
+    void notifyWaitingToUser(String staffId, String queueId);
+
     void broadcast(String queueId, Object payload);
 
+    /**
+     * Ghi nhận kích thước mới của hàng đợi. Các thay đổi trong cùng một cửa sổ thời gian
+     * được gộp lại, mỗi hàng đợi chỉ broadcast giá trị cuối cùng một lần mỗi cửa sổ.
+     */
+    void publishQueueSize(String queueId, long size);
+
 }
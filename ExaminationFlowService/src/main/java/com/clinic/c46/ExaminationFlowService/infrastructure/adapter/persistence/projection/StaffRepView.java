@@ -0,0 +1,23 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection;
+
+import com.clinic.c46.CommonService.domain.BaseView;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+@Entity
+@Table(name = "staff_rep")
+@Getter
+@Setter
+@NoArgsConstructor
+@SuperBuilder
+public class StaffRepView extends BaseView {
+    @Id
+    private String id;
+
+    private String role;
+}
@@ -7,6 +7,7 @@ import com.clinic.c46.CommonService.event.medicalPackage.MedicalPackageDeletedEv
 import com.clinic.c46.CommonService.event.medicalPackage.MedicalPackageInfoUpdatedEvent;
 import com.clinic.c46.CommonService.event.medicalPackage.MedicalPackagePriceUpdatedEvent;
 import com.clinic.c46.CommonService.exception.TransientDataNotReadyException;
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.PackageServiceIndex;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.PackageRepView;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.ServiceRepView;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.PackageRepViewRepository;
@@ -19,6 +20,7 @@ import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -28,6 +30,7 @@ import java.util.stream.Collectors;
 public class PackageRepViewProjector {
     private final PackageRepViewRepository packageRepViewRepository;
     private final ServiceRepViewRepository serviceRepViewRepository;
+    private final PackageServiceIndex packageServiceIndex;
 
     @EventHandler
     @Retryable(
@@ -60,6 +63,7 @@ public class PackageRepViewProjector {
 
         packageRepView.markCreated();
         packageRepViewRepository.save(packageRepView);
+        packageServiceIndex.putPackage(event.medicalPackageId(), toServicePriorities(serviceRepViews));
     }
 
 
@@ -84,6 +88,7 @@ public class PackageRepViewProjector {
         packageRepView.markUpdated();
         // Save
         packageRepViewRepository.save(packageRepView);
+        packageServiceIndex.putPackage(event.medicalPackageId(), toServicePriorities(serviceRepViews));
 
     }
 
@@ -130,9 +135,15 @@ public class PackageRepViewProjector {
     public void handle(MedicalPackageDeletedEvent event) {
         packageRepViewRepository.findById(event.medicalPackageId())
                 .ifPresent(packageRepViewRepository::delete);
+        packageServiceIndex.removePackage(event.medicalPackageId());
     }
 
 
+    private Map<String, Integer> toServicePriorities(Set<ServiceRepView> serviceRepViews) {
+        return serviceRepViews.stream()
+                .collect(Collectors.toMap(ServiceRepView::getId, ServiceRepView::getProcessingPriority));
+    }
+
     private PackageRepView handleGetPackageById(String medicalPackageId) {
         return packageRepViewRepository.findById(medicalPackageId)
                 .orElseThrow(() -> new TransientDataNotReadyException(
@@ -5,13 +5,17 @@ import com.clinic.c46.CommonService.event.staff.DepartmentDeletedEvent;
 import com.clinic.c46.CommonService.exception.ResourceNotFoundException;
 import com.clinic.c46.ExaminationFlowService.application.dto.QueueItemDetailsDto;
 import com.clinic.c46.ExaminationFlowService.application.query.GetQueueItemDetailsByIdQuery;
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueEnqueuedSignal;
+import com.clinic.c46.ExaminationFlowService.application.service.websocket.WebSocketNotifier;
 import com.clinic.c46.ExaminationFlowService.domain.event.QueueItemCompletedEvent;
 import com.clinic.c46.ExaminationFlowService.domain.event.QueueItemCreatedEvent;
 import com.clinic.c46.ExaminationFlowService.domain.event.QueueItemTakenEvent;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.QueueViewRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.ReplayStatus;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
 import org.springframework.stereotype.Component;
@@ -19,27 +23,40 @@ import org.springframework.stereotype.Component;
 import java.util.Optional;
 
 @Component
+@ProcessingGroup("queue-projection")
 @RequiredArgsConstructor
 @Slf4j
 public class QueueProjector {
 
     private final QueueViewRepository queueViewRepository;
     private final QueryGateway queryGateway;
+    private final QueueEnqueuedSignal queueEnqueuedSignal;
+    private final WebSocketNotifier webSocketNotifier;
 
     @EventHandler
-    public void on(QueueItemCreatedEvent event) {
-        if (queueViewRepository.isInQueue(event.queueId(), event.queueItemId())) {
-            return;
+    public void on(QueueItemCreatedEvent event, ReplayStatus replayStatus) {
+        // idempotency: the enqueue script skips items already in the queue
+        long queueSize = queueViewRepository.enqueueToTail(event.queueId(), event.queueItemId());
+        if (queueSize >= 0) {
+            webSocketNotifier.publishQueueSize(event.queueId(), queueSize);
+        }
+        // replay dựng lại Redis từ event cũ, không phải bệnh nhân mới vào hàng đợi
+        if (!replayStatus.isReplay()) {
+            queueEnqueuedSignal.publish(event.queueId());
         }
-        queueViewRepository.enqueueToTail(event.queueId(), event.queueItemId());
     }
 
     @EventHandler
-    public void on(QueueItemTakenEvent event) {
-        if (queueViewRepository.isInProgress(event.queueItemId())) {
-            return; // idempotency
+    public void on(QueueItemTakenEvent event, ReplayStatus replayStatus) {
+        // idempotency: the take script skips items already in processing
+        long queueSize = queueViewRepository.handleTakeNext(event.queueId(), event.queueItemId());
+        if (queueSize >= 0) {
+            webSocketNotifier.publishQueueSize(event.queueId(), queueSize);
+        }
+        // bác sĩ thua khi tranh item vừa bị lấy đã được đưa lại phòng chờ: đánh thức họ cho item kế tiếp
+        if (queueSize > 0 && !replayStatus.isReplay()) {
+            queueEnqueuedSignal.publish(event.queueId());
         }
-        queueViewRepository.handleTakeNext(event.queueId());
     }
 
     @EventHandler
@@ -54,10 +71,7 @@ public class QueueProjector {
         }
         QueueItemDetailsDto queueItemDetailsDto = queueItemDetailsDtoOptional.get();
 
-        if (queueViewRepository.isCompleted(queueItemDetailsDto.queueId(), event.queueItemId())) {
-            return; // idempotency
-        }
-
+        // idempotency: the complete script skips items no longer in processing
         queueViewRepository.complete(queueItemDetailsDto.queueId(), event.queueItemId());
     }
 
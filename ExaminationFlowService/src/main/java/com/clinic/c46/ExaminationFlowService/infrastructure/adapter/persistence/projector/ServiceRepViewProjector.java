@@ -4,6 +4,7 @@ package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence
 import com.clinic.c46.CommonService.event.medicalPackage.MedicalServiceCreatedEvent;
 import com.clinic.c46.CommonService.event.medicalPackage.MedicalServiceDeletedEvent;
 import com.clinic.c46.CommonService.event.medicalPackage.MedicalServiceInfoUpdatedEvent;
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.PackageServiceIndex;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.ServiceRepView;
 import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.ServiceRepViewRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class ServiceRepViewProjector {
     private final ServiceRepViewRepository serviceRepViewRepository;
+    private final PackageServiceIndex packageServiceIndex;
 
     @EventHandler
     public void handle(MedicalServiceCreatedEvent event) {
@@ -30,6 +32,7 @@ public class ServiceRepViewProjector {
                 .build();
         serviceRepView.markCreated();
         serviceRepViewRepository.save(serviceRepView);
+        packageServiceIndex.putServicePriority(event.medicalServiceId(), event.processingPriority());
     }
 
     @EventHandler
@@ -48,6 +51,7 @@ public class ServiceRepViewProjector {
 
         // Save
         serviceRepViewRepository.save(serviceRepView);
+        packageServiceIndex.putServicePriority(event.medicalServiceId(), event.processingPriority());
 
     }
 
@@ -55,6 +59,7 @@ public class ServiceRepViewProjector {
     public void handle(MedicalServiceDeletedEvent event) {
         serviceRepViewRepository.findById(event.medicalServiceId())
                 .ifPresent(serviceRepViewRepository::delete);
+        packageServiceIndex.removeService(event.medicalServiceId());
     }
 
 }
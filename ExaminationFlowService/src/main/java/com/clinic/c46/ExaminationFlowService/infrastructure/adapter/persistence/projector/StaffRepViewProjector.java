@@ -0,0 +1,75 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projector;
+
+import com.clinic.c46.CommonService.event.staff.DoctorCreatedEvent;
+import com.clinic.c46.CommonService.event.staff.DoctorDeletedEvent;
+import com.clinic.c46.CommonService.event.staff.StaffRegisteredEvent;
+import com.clinic.c46.CommonService.event.staff.StaffRemovedEvent;
+import com.clinic.c46.ExaminationFlowService.application.service.queue.StaffExistenceCache;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.StaffRepView;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.StaffRepViewRepository;
+import lombok.RequiredArgsConstructor;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.EventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bản sao danh sách nhân viên từ StaffService.
+ * <p>
+ * Dùng processing group riêng để khi triển khai lần đầu processor đọc lại từ đầu event store
+ * và dựng đủ các bác sĩ đã tạo trước đó (qua DoctorCreatedEvent).
+ */
+@Component
+@RequiredArgsConstructor
+@ProcessingGroup("staff-rep")
+public class StaffRepViewProjector {
+    private final StaffRepViewRepository staffRepViewRepository;
+    private final StaffExistenceCache staffExistenceCache;
+
+    @EventHandler
+    public void handle(StaffRegisteredEvent event) {
+        register(event.staffId(), event.role());
+    }
+
+    @EventHandler
+    public void handle(DoctorCreatedEvent event) {
+        register(event.doctorId(), "DOCTOR");
+    }
+
+    @EventHandler
+    public void handle(StaffRemovedEvent event) {
+        remove(event.staffId());
+    }
+
+    @EventHandler
+    public void handle(DoctorDeletedEvent event) {
+        remove(event.doctorId());
+    }
+
+    private void register(String staffId, String role) {
+        StaffRepView staffRepView = staffRepViewRepository.findById(staffId)
+                .orElse(null);
+
+        if (staffRepView == null) {
+            staffRepView = StaffRepView.builder()
+                    .id(staffId)
+                    .role(role)
+                    .build();
+            staffRepView.markCreated();
+            staffRepViewRepository.save(staffRepView);
+        }
+
+        if (!staffRepView.isDeleted()) {
+            staffExistenceCache.add(staffId);
+        }
+    }
+
+    private void remove(String staffId) {
+        staffExistenceCache.remove(staffId);
+        staffRepViewRepository.findById(staffId)
+                .filter(staffRepView -> !staffRepView.isDeleted())
+                .ifPresent(staffRepView -> {
+                    staffRepView.markDeleted();
+                    staffRepViewRepository.save(staffRepView);
+                });
+    }
+}
@@ -1,24 +1,27 @@
 package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface QueueViewRepository {
 
     void createQueue(String queueId);
-    boolean isInProgress(String queueItemId);
+    boolean isInProgress(String queueId, String queueItemId);
 
     boolean isInQueue(String queueId, String queueItemId);
     boolean isCompleted(String queueId, String queueItemId);
     Long getQueueSize(String queueId);
 
     /**
-     * Atomically take the oldest item from main and move to processing.
-     * This is FIFO: we pop from the right (oldest) and push to left of processing.
+     * Atomically move the taken item from main to processing.
+     * This is FIFO: the taken item is normally the oldest (right) one.
+     *
+     * @return size of the main queue after the move, -1 if the item was already in processing
      */
-    void handleTakeNext(String queueId);
+    long handleTakeNext(String queueId, String itemId);
 
     /**
-     * Complete an item: remove it from processing list (LREM), and optionally push to history.
+     * Complete an item: remove it from processing list and push to the history of the day.
      */
     void complete(String queueId, String itemId);
 
@@ -36,11 +39,39 @@ public interface QueueViewRepository {
 
     /**
      * optionally: method to push new item to tail (enqueue)
+     *
+     * @return size of the main queue after the push, -1 if the item was already queued
      */
-    void enqueueToTail(String queueId, String itemId);
+    long enqueueToTail(String queueId, String itemId);
 
     /**
-     * Delete queue structures (main, history and flags) for a given queueId
+     * Delete queue structures (main, processing, history and flags) for a given queueId
      */
     void deleteQueue(String queueId);
+
+    /**
+     * Build membership indexes for lists created before the indexes existed.
+     * Items already in an index are kept, so it is safe to run on every start.
+     */
+    void rebuildMemberIndexes();
+
+    /**
+     * Put the retention TTL on the old unbounded "queue:{id}:history" lists so they expire.
+     */
+    void expireLegacyHistory();
+
+    /**
+     * Items still held in the old global "queue:processing" list.
+     */
+    List<String> findLegacyProcessingItems();
+
+    /**
+     * Move one item from the old global processing list to the processing list of its queue.
+     */
+    void migrateLegacyProcessingItem(String queueId, String itemId);
+
+    /**
+     * Drop the old global processing list once all its items are migrated.
+     */
+    void deleteLegacyProcessing();
 }
@@ -0,0 +1,35 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository;
+
+import lombok.Getter;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * Các Lua script của hàng đợi Redis.
+ * <p>
+ * DefaultRedisScript tính SHA1 một lần và RedisTemplate gọi EVALSHA,
+ * chỉ gửi lại nội dung script (EVAL) khi Redis trả về NOSCRIPT.
+ * Mỗi script là một thao tác nguyên tử, một round trip.
+ */
+@Component
+@Getter
+public class RedisQueueScripts {
+
+    private static final String SCRIPT_LOCATION = "scripts/queue/";
+
+    private final RedisScript<Long> enqueue = load("enqueue.lua");
+    private final RedisScript<Long> take = load("take.lua");
+    private final RedisScript<Long> complete = load("complete.lua");
+    private final RedisScript<Long> rollback = load("rollback.lua");
+    private final RedisScript<Long> rebuildIndex = load("rebuild_index.lua");
+    private final RedisScript<Long> migrateProcessing = load("migrate_processing.lua");
+
+    private static RedisScript<Long> load(String fileName) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(SCRIPT_LOCATION + fileName));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
@@ -3,12 +3,20 @@ package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
@@ -16,35 +24,71 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class RedisQueueViewRepositoryImpl implements QueueViewRepository {
 
-    /**
-     * Nếu hàng đợi source hiện đang rỗng, lệnh sẽ chờ trong khoảng thời gian xác
-     * định (TIMEOUT_SECONDS).
-     * Nếu có item xuất hiện trong thời gian chờ, nó sẽ được lấy đi;
-     * Nếu hết thời gian chờ mà không có item nào, lệnh sẽ trả về null.
-     *
-     */
-    private final int TIMEOUT_SECONDS = 0; // Non-blocking
+    // số phần tử mỗi lần gọi rebuild_index.lua, để một script không chặn Redis lâu trên list lớn
+    private static final int INDEX_REBUILD_PAGE_SIZE = 500;
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final RedisQueueScripts queueScripts;
+
+    @Value("${queue.history.retention-days:30}")
+    private int historyRetentionDays;
+
+    @Value("${queue.history.zone:Asia/Ho_Chi_Minh}")
+    private String historyZone;
 
     // keys pattern
     private String mainKey(String queueId) {
         return "queue:" + queueId + ":main";
     }
 
-    private String procKey() {
+    /**
+     * Processing list riêng cho từng hàng đợi, để các khoa không tranh chấp
+     * và không phải quét chung một list.
+     */
+    private String procKey(String queueId) {
+        return "queue:" + queueId + ":processing";
+    }
+
+    /**
+     * Key processing dùng chung cho mọi hàng đợi trước đây, chỉ còn dùng để migrate.
+     */
+    private String legacyProcKey() {
         return "queue:processing";
     }
 
-    private String historyKey(String queueId) {
+    /**
+     * Lịch sử chia theo ngày, mỗi key có TTL = thời gian lưu giữ
+     * nên dữ liệu cũ tự hết hạn thay vì dồn vào một list không giới hạn.
+     */
+    private String historyKey(String queueId, LocalDate day) {
+        return "queue:" + queueId + ":history:" + day;
+    }
+
+    /**
+     * List lịch sử không giới hạn trước đây, chỉ còn dùng để cho hết hạn.
+     */
+    private String legacyHistoryKey(String queueId) {
         return "queue:" + queueId + ":history";
     }
 
+    private LocalDate today() {
+        return LocalDate.now(ZoneId.of(historyZone));
+    }
+
+    private long historyTtlSeconds() {
+        return Duration.ofDays(historyRetentionDays)
+                .toSeconds();
+    }
+
+    // Set đi kèm mỗi list để kiểm tra thành viên O(1) (SISMEMBER) thay vì LRANGE toàn bộ
+    private String membersKey(String listKey) {
+        return listKey + ":members";
+    }
+
     @Override
     public void createQueue(String queueId) {
         initializeListQueue(mainKey(queueId));
-        initializeListQueue(historyKey(queueId));
-        initializeListQueue(procKey());
+        initializeListQueue(procKey(queueId));
 
     }
 
@@ -75,27 +119,29 @@ public class RedisQueueViewRepositoryImpl implements QueueViewRepository {
     }
 
     @Override
-    public boolean isInProgress(String queueItemId) {
-        String procKey = procKey();
-        List<String> processingItems = redisTemplate.opsForList()
-                .range(procKey, 0, -1);
-        return processingItems != null && processingItems.contains(queueItemId);
+    public boolean isInProgress(String queueId, String queueItemId) {
+        return isMember(membersKey(procKey(queueId)), queueItemId);
     }
 
     @Override
     public boolean isInQueue(String queueId, String queueItemId) {
-        String queueKey = mainKey(queueId);
-        List<String> processingItems = redisTemplate.opsForList()
-                .range(queueKey, 0, -1);
-        return processingItems != null && processingItems.contains(queueItemId);
+        return isMember(membersKey(mainKey(queueId)), queueItemId);
     }
 
+    /**
+     * Chỉ xét lịch sử hôm nay và hôm qua (item hoàn thành qua nửa đêm): hai lệnh SISMEMBER,
+     * không phụ thuộc vào độ dài lịch sử.
+     */
     @Override
     public boolean isCompleted(String queueId, String queueItemId) {
-        String queueKey = historyKey(queueId);
-        List<String> processingItems = redisTemplate.opsForList()
-                .range(queueKey, 0, -1);
-        return processingItems != null && processingItems.contains(queueItemId);
+        LocalDate today = today();
+        return isMember(membersKey(historyKey(queueId, today)), queueItemId) || isMember(
+                membersKey(historyKey(queueId, today.minusDays(1))), queueItemId);
+    }
+
+    private boolean isMember(String membersKey, String queueItemId) {
+        return Boolean.TRUE.equals(redisTemplate.opsForSet()
+                .isMember(membersKey, queueItemId));
     }
 
     @Override
@@ -106,58 +152,49 @@ public class RedisQueueViewRepositoryImpl implements QueueViewRepository {
     }
 
     /**
-     * Atomically take the oldest item from main and move to processing.
-     * This is FIFO: we pop from the right (oldest) and push to left of processing.
-     * timeoutSeconds = 0 -> nonblocking
+     * Atomically move the taken item from main to processing.
+     * This is FIFO: the taken item is normally the oldest (right) one, which the
+     * script pops in O(1); otherwise it is removed by value.
      */
-    public void handleTakeNext(String queueId) {
-        String source = mainKey(queueId);
-        String dest = procKey();
-        /**
-         * moved: Biến này sẽ chứa item đã được di chuyển (thường là một chuỗi) nếu thao
-         * tác thành công,
-         * hoặc chứa null nếu hết thời gian chờ mà không có item nào.
-         */
-        redisTemplate.opsForList()
-                .rightPopAndLeftPush(source, dest, this.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    @Override
+    public long handleTakeNext(String queueId, String itemId) {
+        String main = mainKey(queueId);
+        String proc = procKey(queueId);
+        return sizeOrUnchanged(redisTemplate.execute(queueScripts.getTake(),
+                List.of(main, membersKey(main), proc, membersKey(proc)), itemId));
     }
 
     /**
-     * Complete an item: remove it from processing list (LREM), and optionally push
-     * to history.
+     * Complete an item: remove it from processing list and push to the history of the day,
+     * in one script call. The day keys get the retention TTL.
      */
+    @Override
     public void complete(String queueId, String itemId) {
-        String proc = procKey();
-        Long removed = redisTemplate.opsForList()
-                .remove(proc, 1, itemId); // remove first match
-        if (removed != null && removed > 0) {
-            redisTemplate.opsForList()
-                    .leftPush(historyKey(queueId), itemId); // archive
-        }
+        String proc = procKey(queueId);
+        String history = historyKey(queueId, today());
+        redisTemplate.execute(queueScripts.getComplete(),
+                List.of(proc, membersKey(proc), history, membersKey(history)), itemId,
+                String.valueOf(historyTtlSeconds()));
     }
 
     /**
-     * Rollback an item: remove from processing and push to HEAD of main queue
-     * (leftPush)
-     * so it will be next processed (2-way queue requirement).
+     * Rollback an item: remove from processing and push to the oldest side of main
+     * queue so it will be next processed (2-way queue requirement).
      */
+    @Override
     public boolean rollbackToHead(String queueId, String itemId) {
-        String proc = procKey();
-        Long removed = redisTemplate.opsForList()
-                .remove(proc, 1, itemId);
-        if (removed != null && removed > 0) {
-            // Sử dụng rightPush để nó được xử lý ngay lập tức
-            redisTemplate.opsForList()
-                    .rightPush(mainKey(queueId), itemId); // add to tail (oldest side)
-            return true;
-        }
-        return false;
+        String proc = procKey(queueId);
+        String main = mainKey(queueId);
+        Long moved = redisTemplate.execute(queueScripts.getRollback(),
+                List.of(proc, membersKey(proc), main, membersKey(main)), itemId);
+        return sizeOrUnchanged(moved) >= 0;
     }
 
     /**
      * Peek at head (oldest) without removing — useful if you only need to inspect.
      * NOTE: not atomic with takeNext; use takeNext for actual dequeue.
      */
+    @Override
     public Optional<String> peekHead(String queueId) {
         // oldest is at right index -1
         String head = redisTemplate.opsForList()
@@ -168,26 +205,104 @@ public class RedisQueueViewRepositoryImpl implements QueueViewRepository {
     /**
      * optionally: method to push new item to tail (enqueue)
      */
-    public void enqueueToTail(String queueId, String itemId) {
-        redisTemplate.opsForList()
-                .leftPush(mainKey(queueId), itemId); // push to head = newest on left
-        // If you prefer pushing to tail for FIFO, use rightPush. Here design uses right
-        // as oldest.
+    @Override
+    public long enqueueToTail(String queueId, String itemId) {
+        // push to head = newest on left, right side is the oldest
+        String main = mainKey(queueId);
+        return sizeOrUnchanged(
+                redisTemplate.execute(queueScripts.getEnqueue(), List.of(main, membersKey(main)), itemId));
+    }
+
+    /**
+     * enqueue/take/rollback scripts return the main queue size after the change, -1 when nothing changed
+     */
+    private static long sizeOrUnchanged(Long scriptResult) {
+        return scriptResult != null ? scriptResult : -1L;
     }
 
     @Override
     public void deleteQueue(String queueId) {
-        // delete main list, history list and init flags
-        String main = mainKey(queueId);
-        String history = historyKey(queueId);
-        String mainFlag = main + ":init_flag";
-        String historyFlag = history + ":init_flag";
-
-        redisTemplate.delete(main);
-        redisTemplate.delete(history);
-        redisTemplate.delete(mainFlag);
-        redisTemplate.delete(historyFlag);
+        // delete main, processing and history lists, their member sets and init flags
+        List<String> keys = new ArrayList<>();
+        for (String listKey : List.of(mainKey(queueId), procKey(queueId), legacyHistoryKey(queueId))) {
+            keys.add(listKey);
+            keys.add(membersKey(listKey));
+            keys.add(listKey + ":init_flag");
+        }
+        keys.addAll(scanKeys(legacyHistoryKey(queueId) + ":*"));
+
+        redisTemplate.delete(keys);
         log.info("Deleted queue data for {}", queueId);
     }
 
+    @Override
+    public void rebuildMemberIndexes() {
+        Set<String> listKeys = new HashSet<>();
+        listKeys.addAll(scanKeys(mainKey("*")));
+        listKeys.addAll(scanKeys(procKey("*")));
+
+        for (String listKey : listKeys) {
+            List<String> keys = List.of(listKey, membersKey(listKey));
+            long indexed = 0;
+            long page;
+            do {
+                Long read = redisTemplate.execute(queueScripts.getRebuildIndex(), keys, String.valueOf(indexed),
+                        String.valueOf(INDEX_REBUILD_PAGE_SIZE));
+                page = read != null ? read : 0;
+                indexed += page;
+            } while (page == INDEX_REBUILD_PAGE_SIZE);
+            if (indexed > 0) {
+                log.info("Rebuilt member index for {} ({} items)", listKey, indexed);
+            }
+        }
+    }
+
+    @Override
+    public void expireLegacyHistory() {
+        long ttl = historyTtlSeconds();
+        for (String listKey : scanKeys(legacyHistoryKey("*"))) {
+            for (String key : List.of(listKey, membersKey(listKey), listKey + ":init_flag")) {
+                // chỉ đặt TTL khi key chưa có, để lần khởi động sau không gia hạn thêm
+                if (Long.valueOf(-1L)
+                        .equals(redisTemplate.getExpire(key))) {
+                    redisTemplate.expire(key, Duration.ofSeconds(ttl));
+                }
+            }
+        }
+    }
+
+    @Override
+    public List<String> findLegacyProcessingItems() {
+        List<String> items = redisTemplate.opsForList()
+                .range(legacyProcKey(), 0, -1);
+        return items != null ? items : List.of();
+    }
+
+    @Override
+    public void migrateLegacyProcessingItem(String queueId, String itemId) {
+        String legacy = legacyProcKey();
+        String proc = procKey(queueId);
+        redisTemplate.execute(queueScripts.getMigrateProcessing(),
+                List.of(legacy, membersKey(legacy), proc, membersKey(proc)), itemId);
+    }
+
+    @Override
+    public void deleteLegacyProcessing() {
+        String legacy = legacyProcKey();
+        redisTemplate.delete(List.of(legacy, membersKey(legacy), legacy + ":init_flag"));
+        log.info("Deleted legacy processing list {}", legacy);
+    }
+
+    private Set<String> scanKeys(String pattern) {
+        Set<String> keys = new HashSet<>();
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(pattern)
+                .count(500)
+                .build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(keys::add);
+        }
+        return keys;
+    }
+
 }
@@ -0,0 +1,15 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository;
+
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.StaffRepView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StaffRepViewRepository extends JpaRepository<StaffRepView, String> {
+
+    @Query("SELECT s.id FROM StaffRepView s WHERE s.deletedAt IS NULL")
+    List<String> findAllActiveIds();
+}
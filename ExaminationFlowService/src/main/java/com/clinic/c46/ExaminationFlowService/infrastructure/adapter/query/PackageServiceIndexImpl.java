@@ -0,0 +1,167 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.query;
+
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.PackageServiceIndex;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.PackageRepView;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.ServiceRepView;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.PackageRepViewRepository;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.ServiceRepViewRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chỉ instance giữ segment của PackageRepViewProjector / ServiceRepViewProjector nhận event cập nhật index,
+ * nên mỗi mục hết hạn sau service-rep.index.expire-after-write-minutes: instance khác nạp lại từ bản sao
+ * thay vì giữ mãi dữ liệu cũ.
+ */
+@Component
+@Slf4j
+public class PackageServiceIndexImpl implements PackageServiceIndex {
+
+    private static final String PENDING_CHANGES = PackageServiceIndexImpl.class.getName() + ".pendingChanges";
+
+    private final PackageRepViewRepository packageRepViewRepository;
+    private final ServiceRepViewRepository serviceRepViewRepository;
+
+    // packageId -> serviceIds (Set bất biến)
+    private final Cache<String, Set<String>> serviceIdsByPackage;
+    private final Cache<String, Integer> priorityByService;
+
+    public PackageServiceIndexImpl(PackageRepViewRepository packageRepViewRepository,
+            ServiceRepViewRepository serviceRepViewRepository,
+            @Value("${service-rep.index.expire-after-write-minutes:5}") long expireAfterWriteMinutes) {
+        this.packageRepViewRepository = packageRepViewRepository;
+        this.serviceRepViewRepository = serviceRepViewRepository;
+        this.serviceIdsByPackage = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .build();
+        this.priorityByService = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Override
+    public Optional<List<String>> findServiceIdsByPriority(Set<String> packageIds) {
+        if (packageIds == null || packageIds.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Đọc vào map cục bộ để mục hết hạn giữa chừng không làm kết quả thiếu
+        Map<String, Set<String>> packages = new HashMap<>(serviceIdsByPackage.getAllPresent(packageIds));
+        Set<String> missingPackages = new HashSet<>(packageIds);
+        missingPackages.removeAll(packages.keySet());
+        if (!missingPackages.isEmpty()) {
+            packages.putAll(loadPackages(missingPackages));
+            if (!packages.keySet()
+                    .containsAll(packageIds)) {
+                return Optional.empty();
+            }
+        }
+
+        Set<String> serviceIds = new LinkedHashSet<>();
+        packageIds.forEach(packageId -> serviceIds.addAll(packages.get(packageId)));
+
+        Map<String, Integer> priorities = new HashMap<>(priorityByService.getAllPresent(serviceIds));
+        Set<String> missingServices = new HashSet<>(serviceIds);
+        missingServices.removeAll(priorities.keySet());
+        if (!missingServices.isEmpty()) {
+            priorities.putAll(loadServices(missingServices));
+        }
+
+        // Dịch vụ đã bị xoá khỏi bản sao thì không còn phòng ban để xếp hàng -> bỏ qua
+        List<String> ordered = serviceIds.stream()
+                .filter(priorities::containsKey)
+                .sorted(Comparator.comparingInt(priorities::get))
+                .toList();
+        if (ordered.size() != serviceIds.size()) {
+            log.warn("[exam-flow.package-service-index.service.not-found] [package-ids: {}]", packageIds);
+        }
+        return Optional.of(ordered);
+    }
+
+    @Override
+    public void putPackage(String packageId, Map<String, Integer> servicePriorities) {
+        Set<String> serviceIds = Set.copyOf(servicePriorities.keySet());
+        afterCommit(() -> {
+            priorityByService.putAll(servicePriorities);
+            serviceIdsByPackage.put(packageId, serviceIds);
+        });
+    }
+
+    @Override
+    public void removePackage(String packageId) {
+        afterCommit(() -> serviceIdsByPackage.invalidate(packageId));
+    }
+
+    @Override
+    public void putServicePriority(String serviceId, int processingPriority) {
+        afterCommit(() -> priorityByService.put(serviceId, processingPriority));
+    }
+
+    @Override
+    public void removeService(String serviceId) {
+        afterCommit(() -> priorityByService.invalidate(serviceId));
+    }
+
+    /**
+     * Thay đổi từ projector chỉ được áp vào index sau khi batch của processor commit, batch rollback
+     * hay retry không làm index lệch với bảng bản sao. Gom theo thứ tự event và áp trong một callback,
+     * vì các callback afterCommit chạy ngược thứ tự đăng ký.
+     */
+    private void afterCommit(Runnable change) {
+        if (!CurrentUnitOfWork.isStarted()) {
+            change.run();
+            return;
+        }
+        UnitOfWork<?> unitOfWork = CurrentUnitOfWork.get()
+                .root();
+        List<Runnable> pending = unitOfWork.getOrComputeResource(PENDING_CHANGES, key -> {
+            List<Runnable> changes = new ArrayList<>();
+            unitOfWork.afterCommit(uow -> changes.forEach(Runnable::run));
+            return changes;
+        });
+        pending.add(change);
+    }
+
+    // putIfAbsent: không ghi đè dữ liệu mới hơn do projector vừa đưa vào
+    private Map<String, Set<String>> loadPackages(Set<String> packageIds) {
+        Map<String, Set<String>> loaded = new HashMap<>();
+        for (PackageRepView packageRepView : packageRepViewRepository.findAllById(packageIds)) {
+            Set<String> serviceIds = new HashSet<>();
+            for (ServiceRepView service : packageRepView.getServices()) {
+                serviceIds.add(service.getId());
+                priorityByService.asMap()
+                        .putIfAbsent(service.getId(), service.getProcessingPriority());
+            }
+            Set<String> existing = serviceIdsByPackage.asMap()
+                    .putIfAbsent(packageRepView.getId(), Set.copyOf(serviceIds));
+            loaded.put(packageRepView.getId(), existing != null ? existing : Set.copyOf(serviceIds));
+        }
+        return loaded;
+    }
+
+    private Map<String, Integer> loadServices(Set<String> serviceIds) {
+        Map<String, Integer> loaded = new HashMap<>();
+        for (ServiceRepView service : serviceRepViewRepository.findAllById(serviceIds)) {
+            Integer existing = priorityByService.asMap()
+                    .putIfAbsent(service.getId(), service.getProcessingPriority());
+            loaded.put(service.getId(), existing != null ? existing : service.getProcessingPriority());
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,25 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.query;
+
+import com.clinic.c46.ExaminationFlowService.application.dto.ServiceRepDto;
+import com.clinic.c46.ExaminationFlowService.application.service.serviceRep.ServiceRepLookup;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.helper.ServiceMapper;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.ServiceRepViewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class ServiceRepLookupImpl implements ServiceRepLookup {
+
+    private final ServiceRepViewRepository serviceRepViewRepository;
+    private final ServiceMapper serviceMapper;
+
+    // ServiceRepView nằm trong L2 cache nên phần lớn lần tra không chạm DB
+    @Override
+    public Optional<ServiceRepDto> findById(String serviceId) {
+        return serviceRepViewRepository.findById(serviceId)
+                .map(serviceMapper::toDto);
+    }
+}
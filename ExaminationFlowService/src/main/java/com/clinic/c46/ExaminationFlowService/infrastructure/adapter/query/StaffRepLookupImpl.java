@@ -0,0 +1,21 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.query;
+
+import com.clinic.c46.ExaminationFlowService.application.service.queue.StaffRepLookup;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.StaffRepViewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+@Component
+@RequiredArgsConstructor
+public class StaffRepLookupImpl implements StaffRepLookup {
+
+    private final StaffRepViewRepository staffRepViewRepository;
+
+    @Override
+    public Optional<Boolean> isActive(String staffId) {
+        return staffRepViewRepository.findById(staffId)
+                .map(staffRepView -> !staffRepView.isDeleted());
+    }
+}
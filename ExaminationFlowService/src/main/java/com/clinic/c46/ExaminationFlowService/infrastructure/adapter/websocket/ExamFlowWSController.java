@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.axonframework.commandhandling.CommandExecutionException;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Controller;
@@ -32,10 +33,11 @@ public class ExamFlowWSController {
     private final QueueService queueService;
 
     @MessageMapping("/queue/take-next")
-    public void handle(@Payload @Valid TakeNextItemRequest request, Principal principal) {
+    public void handle(@Payload @Valid TakeNextItemRequest request, Principal principal,
+            @Header("simpSessionId") String sessionId) {
         String staffId = principal.getName();
         String queueId = request.queueId();
-        queueService.requestGetQueueItem(staffId, queueId);
+        queueService.requestGetQueueItem(staffId, sessionId, queueId, request.waitIfEmpty());
     }
 
     @MessageMapping("item/request-additional-services")
@@ -0,0 +1,23 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueEnqueuedSignal;
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chế độ một instance: mọi bác sĩ đang chờ đều ở JVM này.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "simple", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalQueueEnqueuedSignal implements QueueEnqueuedSignal {
+
+    private final QueueService queueService;
+
+    @Override
+    public void publish(String queueId) {
+        queueService.onItemEnqueued(queueId);
+    }
+}
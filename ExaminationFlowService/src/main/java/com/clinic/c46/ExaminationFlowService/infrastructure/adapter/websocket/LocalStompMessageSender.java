@@ -0,0 +1,27 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chế độ một instance: message chỉ tới các session kết nối vào JVM này.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "simple", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalStompMessageSender implements StompMessageSender {
+
+    private final SimpMessagingTemplate webSocketPusher;
+
+    @Override
+    public void send(String destination, Object payload) {
+        webSocketPusher.convertAndSend(destination, payload);
+    }
+
+    @Override
+    public void sendToUser(String userId, String destination, Object payload) {
+        webSocketPusher.convertAndSendToUser(userId, destination, payload);
+    }
+}
@@ -0,0 +1,54 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueEnqueuedSignal;
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Chế độ nhiều instance: chỉ node giữ segment của queue-projection thấy QueueItemCreatedEvent,
+ * còn bác sĩ có thể đang chờ ở bất kỳ node nào. queueId được publish lên một kênh Redis riêng,
+ * mỗi instance nhận lại (kể cả instance gửi) và đánh thức phòng chờ của chính nó.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "redis")
+@Slf4j
+public class RedisQueueEnqueuedSignal implements QueueEnqueuedSignal, MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final QueueService queueService;
+    private final String channel;
+
+    public RedisQueueEnqueuedSignal(RedisTemplate<String, String> redisTemplate, QueueService queueService,
+            @Value("${websocket.broker.redis-enqueue-channel:exam-workflow:queue-enqueued}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.queueService = queueService;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void publish(String queueId) {
+        redisTemplate.convertAndSend(channel, queueId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String queueId = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            queueService.onItemEnqueued(queueId);
+        } catch (Exception e) {
+            log.error("Failed to wake up waiting doctors of queue {}", queueId, e);
+        }
+    }
+}
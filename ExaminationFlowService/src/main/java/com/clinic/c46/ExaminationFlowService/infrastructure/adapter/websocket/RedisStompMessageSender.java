@@ -0,0 +1,90 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Chế độ nhiều instance: mọi message (topic và user destination) được publish lên một kênh Redis,
+ * mỗi instance subscribe kênh đó và giao message cho các session đang kết nối vào chính nó.
+ * <p>
+ * Instance gửi cũng nhận lại message của mình qua Redis, nên chỉ có một đường giao duy nhất, không bị trùng.
+ * Bác sĩ kết nối vào node A vẫn nhận được broadcast phát ra từ node B.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "redis")
+@Slf4j
+public class RedisStompMessageSender implements StompMessageSender, MessageListener {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final SimpMessagingTemplate webSocketPusher;
+    private final ObjectMapper objectMapper;
+    private final String channel;
+
+    public RedisStompMessageSender(RedisTemplate<String, String> redisTemplate,
+            SimpMessagingTemplate webSocketPusher, ObjectMapper objectMapper,
+            @Value("${websocket.broker.redis-channel:exam-workflow:ws-relay}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.webSocketPusher = webSocketPusher;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        publish(new RelayedMessage(null, destination, objectMapper.valueToTree(payload)));
+    }
+
+    @Override
+    public void sendToUser(String userId, String destination, Object payload) {
+        publish(new RelayedMessage(userId, destination, objectMapper.valueToTree(payload)));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            RelayedMessage relayed = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8),
+                    RelayedMessage.class);
+            // Chuỗi gửi nguyên văn như chế độ simple, các kiểu khác để Jackson converter ghi lại thành JSON
+            Object payload = relayed.payload()
+                    .isTextual() ? relayed.payload()
+                    .asText() : relayed.payload();
+
+            if (relayed.userId() != null) {
+                webSocketPusher.convertAndSendToUser(relayed.userId(), relayed.destination(), payload);
+            } else {
+                webSocketPusher.convertAndSend(relayed.destination(), payload);
+            }
+        } catch (Exception e) {
+            log.error("Failed to deliver relayed STOMP message from channel {}", channel, e);
+        }
+    }
+
+    private void publish(RelayedMessage relayed) {
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(relayed));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize STOMP payload for " + relayed.destination(), e);
+        }
+    }
+
+    /**
+     * userId == null nghĩa là destination dùng chung (topic)
+     */
+    record RelayedMessage(String userId, String destination, JsonNode payload) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+/**
+ * Gửi message STOMP tới client. Triển khai được chọn theo websocket.broker.mode:
+ * "simple" gửi thẳng vào broker trong JVM, "redis" phát qua Redis pub/sub để mọi instance cùng nhận.
+ */
+public interface StompMessageSender {
+
+    void send(String destination, Object payload);
+
+    void sendToUser(String userId, String destination, Object payload);
+}
@@ -1,22 +1,37 @@
 package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
 
 import com.clinic.c46.ExaminationFlowService.application.service.websocket.WebSocketNotifier;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import lombok.extern.slf4j.Slf4j;
-import org.axonframework.queryhandling.QueryGateway;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class WebSocketNotifierImpl implements WebSocketNotifier {
 
     public static final String STAFF_SPECIFIC_GET_QUEUE_SIZE_URL = "/queue/query-size-reply";
     private final String STAFF_SPECIFIC_NOTIFY_ERROR_URL = "/queue/errors";
     private final String STAFF_SPECIFIC_SEND_ITEM_URL = "/queue/exam-workflow/item/details";
-    private final SimpMessagingTemplate webSocketPusher;
-    private final QueryGateway queryGateway;
+    private final String STAFF_SPECIFIC_WAITING_URL = "/queue/exam-workflow/waiting";
+    private final StompMessageSender webSocketPusher;
+
+    // queueId -> kích thước mới nhất chưa broadcast, được xả theo chu kỳ queue.size-broadcast.window-ms
+    private final Map<String, Long> pendingQueueSizes = new ConcurrentHashMap<>();
+    private final Counter queueSizeSentCounter;
+    private final Counter queueSizeCoalescedCounter;
+
+    public WebSocketNotifierImpl(StompMessageSender webSocketPusher, MeterRegistry meterRegistry) {
+        this.webSocketPusher = webSocketPusher;
+        this.queueSizeSentCounter = meterRegistry.counter("queue.size.broadcast", "result", "sent");
+        this.queueSizeCoalescedCounter = meterRegistry.counter("queue.size.broadcast", "result", "coalesced");
+        meterRegistry.gaugeMapSize("queue.size.broadcast.pending", Tags.empty(), pendingQueueSizes);
+    }
 
     private String genPubSubUrl(String queueId) {
         return String.format("/topic/exam-workflow/queue/%s/list", queueId);
@@ -25,21 +40,50 @@ public class WebSocketNotifierImpl implements WebSocketNotifier {
 
     @Override
     public void sendToUser(String userId, Object payload) {
-        webSocketPusher.convertAndSendToUser(userId, STAFF_SPECIFIC_SEND_ITEM_URL, payload);
+        webSocketPusher.sendToUser(userId, STAFF_SPECIFIC_SEND_ITEM_URL, payload);
     }
 
     @Override
     public void sendToUser(String userId, String url, Object payload) {
-        webSocketPusher.convertAndSendToUser(userId, url, payload);
+        webSocketPusher.sendToUser(userId, url, payload);
     }
 
     @Override
     public void notifyErrorToUser(String staffId, String errorMessage) {
-        webSocketPusher.convertAndSendToUser(staffId, STAFF_SPECIFIC_NOTIFY_ERROR_URL, errorMessage);
+        webSocketPusher.sendToUser(staffId, STAFF_SPECIFIC_NOTIFY_ERROR_URL, errorMessage);
+    }
+
+    @Override
+    public void notifyWaitingToUser(String staffId, String queueId) {
+        webSocketPusher.sendToUser(staffId, STAFF_SPECIFIC_WAITING_URL, queueId);
     }
 
     @Override
     public void broadcast(String queueId, Object payload) {
-        webSocketPusher.convertAndSend(genPubSubUrl(queueId), payload);
+        webSocketPusher.send(genPubSubUrl(queueId), payload);
+    }
+
+    @Override
+    public void publishQueueSize(String queueId, long size) {
+        if (pendingQueueSizes.put(queueId, size) != null) {
+            // giá trị trước đó chưa kịp gửi -> bị thay thế
+            queueSizeCoalescedCounter.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${queue.size-broadcast.window-ms:500}")
+    public void flushQueueSizes() {
+        for (String queueId : pendingQueueSizes.keySet()) {
+            Long size = pendingQueueSizes.remove(queueId);
+            if (size == null) {
+                continue;
+            }
+            try {
+                broadcast(queueId, size);
+                queueSizeSentCounter.increment();
+            } catch (Exception e) {
+                log.warn("Failed to broadcast size of queue {}: {}", queueId, e.getMessage());
+            }
+        }
     }
 }
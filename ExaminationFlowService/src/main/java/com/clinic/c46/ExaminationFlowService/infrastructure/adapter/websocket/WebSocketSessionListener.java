@@ -0,0 +1,28 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket;
+
+import com.clinic.c46.ExaminationFlowService.application.service.queue.QueueService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+
+@Component
+@RequiredArgsConstructor
+public class WebSocketSessionListener {
+
+    private final QueueService queueService;
+
+    /**
+     * Session ngắt kết nối thì bỏ yêu cầu "take next" đang chờ được gửi từ chính session đó;
+     * bác sĩ còn mở session khác vẫn giữ yêu cầu.
+     */
+    @EventListener
+    public void on(SessionDisconnectEvent event) {
+        Principal principal = event.getUser();
+        if (principal != null) {
+            queueService.cancelWaiting(principal.getName(), event.getSessionId());
+        }
+    }
+}
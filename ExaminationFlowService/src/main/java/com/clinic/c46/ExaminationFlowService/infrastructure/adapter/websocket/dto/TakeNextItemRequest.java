@@ -3,5 +3,8 @@ package com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket.d
 import jakarta.validation.constraints.NotBlank;
 
 
-public record TakeNextItemRequest(@NotBlank String queueId) {
+/**
+ * @param waitIfEmpty giữ yêu cầu ở server khi hàng đợi rỗng, trả item ngay khi có bệnh nhân mới
+ */
+public record TakeNextItemRequest(@NotBlank String queueId, boolean waitIfEmpty) {
 }
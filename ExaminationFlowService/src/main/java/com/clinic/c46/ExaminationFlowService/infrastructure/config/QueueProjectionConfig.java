@@ -0,0 +1,23 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.config;
+
+import org.axonframework.config.EventProcessingConfigurer;
+import org.axonframework.eventhandling.async.SequentialPolicy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * QueueProjector dựng Redis list theo thứ tự LPUSH và gửi queue size / đánh thức phòng chờ theo thứ tự event.
+ * Mỗi queue item là một aggregate riêng, nên sequencing policy mặc định (theo aggregate) cho phép các item
+ * của cùng một khoa chạy song song trên các segment khác nhau. Ép cả processor xử lý tuần tự để giữ FIFO,
+ * kể cả khi segment bị split sau này.
+ */
+@Configuration
+public class QueueProjectionConfig {
+
+    private static final String QUEUE_PROJECTION = "queue-projection";
+
+    @Autowired
+    public void configureQueueProjectionSequencing(EventProcessingConfigurer configurer) {
+        configurer.registerSequencingPolicy(QUEUE_PROJECTION, config -> new SequentialPolicy());
+    }
+}
@@ -0,0 +1,78 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.config;
+
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.projection.QueueItemView;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.QueueItemViewRepository;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.QueueViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.config.Configurer;
+import org.axonframework.config.ConfigurerModule;
+import org.axonframework.lifecycle.Phase;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Chuẩn bị dữ liệu hàng đợi Redis cũ khi khởi động:
+ * 1. Chuyển các item trong key processing dùng chung "queue:processing" sang
+ * processing list riêng của từng hàng đợi (dựa trên queueId trong QueueItemView).
+ * 2. Dựng set thành viên cho các list đã tồn tại trước khi có index.
+ * 3. Đặt TTL cho list lịch sử không giới hạn cũ (lịch sử mới đã chia theo ngày).
+ * <p>
+ * Chạy trước khi các event processor khởi động (phase INBOUND_EVENT_CONNECTORS): take/complete do
+ * QueueProjector xử lý cần set thành viên đã đầy đủ, nếu không complete.lua không tìm thấy item và
+ * item nằm lại trong processing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RedisQueueIndexInitializer implements ConfigurerModule {
+
+    private final QueueViewRepository queueViewRepository;
+    private final QueueItemViewRepository queueItemViewRepository;
+
+    @Override
+    public void configureModule(Configurer configurer) {
+        configurer.onStart(Phase.INBOUND_EVENT_CONNECTORS - 1, this::prepareQueueData);
+    }
+
+    private void prepareQueueData() {
+        try {
+            migrateLegacyProcessing();
+            queueViewRepository.rebuildMemberIndexes();
+            queueViewRepository.expireLegacyHistory();
+        } catch (Exception e) {
+            log.error("Failed to prepare Redis queue data", e);
+        }
+    }
+
+    private void migrateLegacyProcessing() {
+        List<String> legacyItems = queueViewRepository.findLegacyProcessingItems();
+        if (legacyItems.isEmpty()) {
+            return;
+        }
+
+        Map<String, QueueItemView> itemViews = queueItemViewRepository.findAllById(legacyItems)
+                .stream()
+                .collect(Collectors.toMap(QueueItemView::getId, Function.identity()));
+
+        int unresolved = 0;
+        for (String itemId : legacyItems) {
+            QueueItemView itemView = itemViews.get(itemId);
+            if (itemView == null) {
+                log.warn("Legacy processing item {} has no queue item view, keeping it in place", itemId);
+                unresolved++;
+                continue;
+            }
+            queueViewRepository.migrateLegacyProcessingItem(itemView.getQueueId(), itemId);
+        }
+
+        log.info("Migrated {} items from legacy processing list", legacyItems.size() - unresolved);
+        if (unresolved == 0) {
+            queueViewRepository.deleteLegacyProcessing();
+        }
+    }
+}
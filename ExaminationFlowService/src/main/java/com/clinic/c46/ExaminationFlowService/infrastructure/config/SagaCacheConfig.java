@@ -0,0 +1,92 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.axonframework.common.caching.Cache;
+import org.axonframework.common.caching.JCacheAdapter;
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.modelling.saga.repository.CachingSagaStore;
+import org.axonframework.modelling.saga.repository.SagaStore;
+import org.axonframework.modelling.saga.repository.jpa.JpaSagaStore;
+import org.axonframework.serialization.Serializer;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+
+/**
+ * Saga store có cache cho ClinicWorkFlowProcessingSaga: saga đang chạy được giữ trong bộ nhớ
+ * nên mỗi bước của luồng khám không phải đọc và deserialize lại trạng thái từ bảng saga_entry
+ * (vẫn ghi xuống JPA saga store sau mỗi event).
+ * <p>
+ * Cache là cục bộ theo instance. Processor của saga chỉ có một segment nên tại một thời điểm
+ * chỉ một instance xử lý saga; nếu claim chuyển sang instance khác rồi quay lại trong thời gian
+ * time-to-idle, instance cũ có thể đọc phải trạng thái cũ. Vì vậy mặc định tắt, chỉ bật
+ * (saga.cache.enabled=true) khi service chạy một instance.
+ */
+@Configuration
+@Slf4j
+public class SagaCacheConfig {
+
+    private static final String SAGA_CACHE = "clinic-workflow-saga";
+    private static final String ASSOCIATIONS_CACHE = "clinic-workflow-saga-associations";
+
+    @Value("${saga.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${saga.cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${saga.cache.time-to-idle-minutes:5}")
+    private long timeToIdleMinutes;
+
+    /**
+     * Saga store mặc định cho các saga khác (thay bean sagaStore của Axon auto-config).
+     */
+    @Bean
+    @Primary
+    public JpaSagaStore sagaStore(Serializer serializer, EntityManagerProvider entityManagerProvider) {
+        return JpaSagaStore.builder()
+                .entityManagerProvider(entityManagerProvider)
+                .serializer(serializer)
+                .build();
+    }
+
+    @Bean
+    public SagaStore<Object> clinicWorkFlowSagaStore(JpaSagaStore sagaStore) {
+        if (!enabled) {
+            return sagaStore;
+        }
+
+        CacheManager cacheManager = Caching.getCachingProvider(EhcacheCachingProvider.class.getName())
+                .getCacheManager();
+        log.info("Saga cache enabled: max {} entries, time-to-idle {} minutes", maxEntries, timeToIdleMinutes);
+
+        return CachingSagaStore.builder()
+                .delegateSagaStore(sagaStore)
+                .sagaCache(createCache(cacheManager, SAGA_CACHE))
+                .associationsCache(createCache(cacheManager, ASSOCIATIONS_CACHE))
+                .build();
+    }
+
+    private Cache createCache(CacheManager cacheManager, String name) {
+        javax.cache.Cache<Object, Object> cache = cacheManager.getCache(name, Object.class, Object.class);
+        if (cache == null) {
+            // Lưu theo tham chiếu (heap): saga instance không Serializable
+            cache = cacheManager.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                    ResourcePoolsBuilder.heap(maxEntries))
+                            .withExpiry(ExpiryPolicyBuilder.timeToIdleExpiration(
+                                    Duration.ofMinutes(timeToIdleMinutes)))));
+        }
+        return new JCacheAdapter(cache);
+    }
+}
@@ -0,0 +1,35 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.config;
+
+import com.clinic.c46.ExaminationFlowService.application.service.queue.StaffExistenceCache;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.persistence.repository.StaffRepViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Nạp index nhân viên trong bộ nhớ từ bảng staff_rep khi khởi động,
+ * các thay đổi sau đó do StaffRepViewProjector cập nhật.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaffRepIndexInitializer {
+
+    private final StaffRepViewRepository staffRepViewRepository;
+    private final StaffExistenceCache staffExistenceCache;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            List<String> staffIds = staffRepViewRepository.findAllActiveIds();
+            staffExistenceCache.addAll(staffIds);
+            log.info("Loaded {} staff ids into local index", staffIds.size());
+        } catch (Exception e) {
+            log.error("Failed to load staff index", e);
+        }
+    }
+}
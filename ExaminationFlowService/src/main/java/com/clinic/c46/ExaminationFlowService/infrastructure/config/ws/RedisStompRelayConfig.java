@@ -0,0 +1,25 @@
+package com.clinic.c46.ExaminationFlowService.infrastructure.config.ws;
+
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket.RedisQueueEnqueuedSignal;
+import com.clinic.c46.ExaminationFlowService.infrastructure.adapter.websocket.RedisStompMessageSender;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+@ConditionalOnProperty(name = "websocket.broker.mode", havingValue = "redis")
+public class RedisStompRelayConfig {
+
+    @Bean
+    public RedisMessageListenerContainer stompRelayListenerContainer(RedisConnectionFactory connectionFactory,
+            RedisStompMessageSender redisStompMessageSender, RedisQueueEnqueuedSignal redisQueueEnqueuedSignal) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(redisStompMessageSender, new ChannelTopic(redisStompMessageSender.getChannel()));
+        container.addMessageListener(redisQueueEnqueuedSignal, new ChannelTopic(redisQueueEnqueuedSignal.getChannel()));
+        return container;
+    }
+}
@@ -24,6 +24,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Entrypoint cho Pub/Sub (Server -> Client)
         // Đây là các kênh dùng để gửi cập nhật trạng thái chung của hàng đợi tới nhiều người dùng (tất cả bác sĩ trong phòng).
+        // Simple broker chỉ giao message cho các session của instance này. Khi chạy nhiều instance
+        // (websocket.broker.mode=redis), message server gửi đi được phát qua Redis pub/sub tới mọi instance
+        // trước khi vào broker này (xem RedisStompMessageSender).
         config.enableSimpleBroker("/topic", "/queue");
         // Entrypoint cho Commands (Client -> Server)
         // Đây là các lệnh mà Bác sĩ/Nhân viên gửi để thay đổi trạng thái của hệ thống.
@@ -0,0 +1,13 @@
+-- KEYS[1] = processing list, KEYS[2] = processing members set
+-- KEYS[3] = history list of the day, KEYS[4] = history members set of the day
+-- ARGV[1] = queue item id, ARGV[2] = history retention in seconds
+local item = ARGV[1]
+if redis.call('SREM', KEYS[2], item) == 0 then
+    return 0
+end
+redis.call('LREM', KEYS[1], 1, item)
+redis.call('LPUSH', KEYS[3], item)
+redis.call('SADD', KEYS[4], item)
+redis.call('EXPIRE', KEYS[3], ARGV[2])
+redis.call('EXPIRE', KEYS[4], ARGV[2])
+return 1
@@ -0,0 +1,8 @@
+-- KEYS[1] = main list, KEYS[2] = main members set
+-- ARGV[1] = queue item id
+-- Đẩy item vào đầu bên trái (mới nhất) nếu chưa có trong hàng đợi.
+-- Trả về kích thước hàng đợi chính sau khi thêm, -1 nếu không thay đổi.
+if redis.call('SADD', KEYS[2], ARGV[1]) == 0 then
+    return -1
+end
+return redis.call('LPUSH', KEYS[1], ARGV[1])
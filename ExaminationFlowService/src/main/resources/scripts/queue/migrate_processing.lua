@@ -0,0 +1,12 @@
+-- KEYS[1] = legacy global processing list, KEYS[2] = legacy processing members set
+-- KEYS[3] = per-queue processing list, KEYS[4] = per-queue processing members set
+-- ARGV[1] = queue item id
+-- Chuyển item từ key cũ "queue:processing" sang processing list riêng của hàng đợi.
+local item = ARGV[1]
+redis.call('LREM', KEYS[1], 1, item)
+redis.call('SREM', KEYS[2], item)
+if redis.call('SADD', KEYS[4], item) == 0 then
+    return 0
+end
+redis.call('RPUSH', KEYS[3], item)
+return 1
@@ -0,0 +1,11 @@
+-- KEYS[1] = list, KEYS[2] = members set
+-- ARGV[1] = start index, ARGV[2] = page size
+-- Thêm một trang của list vào set thành viên (dữ liệu trước khi có index).
+-- SADD không thêm trùng nên chạy lại trên set đã có là an toàn.
+-- Trả về số phần tử đã đọc; nhỏ hơn page size nghĩa là đã hết list.
+local start = tonumber(ARGV[1])
+local items = redis.call('LRANGE', KEYS[1], start, start + tonumber(ARGV[2]) - 1)
+if #items > 0 then
+    redis.call('SADD', KEYS[2], unpack(items))
+end
+return #items
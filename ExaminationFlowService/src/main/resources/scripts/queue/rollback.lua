@@ -0,0 +1,12 @@
+-- KEYS[1] = processing list, KEYS[2] = processing members set
+-- KEYS[3] = main list, KEYS[4] = main members set
+-- ARGV[1] = queue item id
+-- Trả item về phía cũ nhất (bên phải) của hàng đợi chính để được xử lý ngay.
+-- Trả về kích thước hàng đợi chính sau khi trả, -1 nếu không thay đổi.
+local item = ARGV[1]
+if redis.call('SREM', KEYS[2], item) == 0 then
+    return -1
+end
+redis.call('LREM', KEYS[1], 1, item)
+redis.call('SADD', KEYS[4], item)
+return redis.call('RPUSH', KEYS[3], item)
@@ -0,0 +1,19 @@
+-- KEYS[1] = main list, KEYS[2] = main members set
+-- KEYS[3] = processing list, KEYS[4] = processing members set
+-- ARGV[1] = queue item id
+-- Chuyển item từ hàng đợi chính sang processing trong một lần gọi.
+-- Trả về kích thước hàng đợi chính sau khi lấy, -1 nếu không thay đổi.
+local item = ARGV[1]
+if redis.call('SISMEMBER', KEYS[4], item) == 1 then
+    return -1
+end
+-- Trường hợp thường gặp: item là phần tử cũ nhất (bên phải) -> RPOP O(1)
+if redis.call('LINDEX', KEYS[1], -1) == item then
+    redis.call('RPOP', KEYS[1])
+else
+    redis.call('LREM', KEYS[1], 1, item)
+end
+redis.call('SREM', KEYS[2], item)
+redis.call('LPUSH', KEYS[3], item)
+redis.call('SADD', KEYS[4], item)
+return redis.call('LLEN', KEYS[1])
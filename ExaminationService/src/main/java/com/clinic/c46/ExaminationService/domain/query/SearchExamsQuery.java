@@ -1,9 +1,11 @@
 package com.clinic.c46.ExaminationService.domain.query;
 
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import lombok.Builder;
 
 
 @Builder
-public record SearchExamsQuery(int page, int size, String keyword) {
+public record SearchExamsQuery(int page, int size, String keyword, PaginationMode pagination, String cursor,
+                               boolean withTotal) {
 
 }
@@ -12,7 +12,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "exam_view")
+@Table(name = "exam_view", indexes = @Index(name = "idx_exam_view_created_at_id", columnList = "created_at, id"))
 @Getter
 @Setter
 @SuperBuilder
@@ -2,7 +2,9 @@ package com.clinic.c46.ExaminationService.infrastructure.adapter.query;
 
 
 import com.clinic.c46.CommonService.dto.ExamDetailsDto;
+import com.clinic.c46.CommonService.helper.KeysetPageRequest;
 import com.clinic.c46.CommonService.helper.PageAndSortHelper;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SortDirection;
 import com.clinic.c46.CommonService.helper.SpecificationBuilder;
 import com.clinic.c46.CommonService.query.examination.GetExamDetailsByIdQuery;
@@ -33,20 +35,37 @@ public class ExaminationQueryHandler {
 
     @QueryHandler
     public ExamsPagedDto handle(SearchExamsQuery q) {
-        Pageable pageable = pageAndSortHelper.buildPageable(q.page(), q.size(), "", SortDirection.ASC);
-
         Specification<ExamView> spec = specificationBuilder.keyword(q.keyword(),
                 List.of("patientName", "patientEmail"));
+
+        if (PaginationMode.KEYSET.equals(q.pagination())) {
+            KeysetPageRequest keysetRequest = KeysetPageRequest.builder()
+                    .cursor(q.cursor())
+                    .size(q.size())
+                    .sortDir(SortDirection.ASC)
+                    .idField("id")
+                    .withTotal(q.withTotal())
+                    .build();
+
+            return pageAndSortHelper.findKeyset(examViewRepository, spec, keysetRequest, this::toExamViewDto,
+                    ExamsPagedDto::new);
+        }
+
+        Pageable pageable = pageAndSortHelper.buildPageable(q.page(), q.size(), "", SortDirection.ASC);
         Page<ExamView> pageResult = examViewRepository.findAll(spec, pageable);
 
 
-        return pageAndSortHelper.toPaged(pageResult, view -> ExamViewDto.builder()
+        return pageAndSortHelper.toPaged(pageResult, this::toExamViewDto, ExamsPagedDto::new);
+    }
+
+    private ExamViewDto toExamViewDto(ExamView view) {
+        return ExamViewDto.builder()
                 .id(view.getId())
                 .patientId(view.getPatientId())
                 .patientName(view.getPatientName())
                 .patientEmail(view.getPatientEmail())
                 .medicalFormId(view.getMedicalFormId())
-                .build(), ExamsPagedDto::new);
+                .build();
     }
 
     @QueryHandler
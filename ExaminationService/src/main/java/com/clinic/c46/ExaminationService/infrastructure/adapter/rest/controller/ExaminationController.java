@@ -1,6 +1,7 @@
 package com.clinic.c46.ExaminationService.infrastructure.adapter.rest.controller;
 
 import com.clinic.c46.CommonService.dto.ExamDetailsDto;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.query.examination.GetExamDetailsByIdQuery;
 import com.clinic.c46.ExaminationService.application.dto.ExamsPagedDto;
 import com.clinic.c46.ExaminationService.application.service.examination.ExaminationService;
@@ -34,12 +35,18 @@ public class ExaminationController {
     public CompletableFuture<ResponseEntity<ExamsPagedDto>> searchExaminations(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false, defaultValue = "1") Integer page,
-            @RequestParam(required = false, defaultValue = "10") Integer size) {
+            @RequestParam(required = false, defaultValue = "10") Integer size,
+            @RequestParam(required = false, defaultValue = "OFFSET") PaginationMode pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean withTotal) {
 
         SearchExamsQuery query = SearchExamsQuery.builder()
                 .keyword(keyword)
                 .page(page)
                 .size(size)
+                .pagination(pagination)
+                .cursor(cursor)
+                .withTotal(withTotal)
                 .build();
         return queryGateway.query(query, ResponseTypes.instanceOf(ExamsPagedDto.class))
                 .thenApply(ResponseEntity::ok);
@@ -13,6 +13,7 @@ import com.clinic.c46.PaymentService.infrastructure.adapter.persistence.projecti
 import com.clinic.c46.PaymentService.infrastructure.adapter.persistence.projection.MedicalPackageRep;
 import com.clinic.c46.PaymentService.infrastructure.adapter.persistence.repository.InvoiceRepository;
 import lombok.RequiredArgsConstructor;
+import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
@@ -25,6 +26,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
+@ProcessingGroup("invoice-projection")
 @RequiredArgsConstructor
 public class InvoiceProjector {
 
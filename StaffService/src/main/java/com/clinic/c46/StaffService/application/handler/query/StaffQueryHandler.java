@@ -1,7 +1,9 @@
 package com.clinic.c46.StaffService.application.handler.query;
 
 
+import com.clinic.c46.CommonService.helper.KeysetPageRequest;
 import com.clinic.c46.CommonService.helper.PageAndSortHelper;
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SpecificationBuilder;
 import com.clinic.c46.CommonService.query.staff.ExistsStaffByIdQuery;
 import com.clinic.c46.CommonService.query.staff.GetIdOfAllStaffQuery;
@@ -42,8 +44,6 @@ public class StaffQueryHandler {
     @QueryHandler
     public StaffsPagedDTO handle(GetAllStaffQuery q) {
 
-        Pageable pageable = pageAndSortHelper.buildPageable(q.page(), q.size(), q.sortBy(), q.sort());
-
         Specification<StaffView> spec1 = specificationBuilder.keyword(q.keyword(), List.of("name", "description"));
         Specification<StaffView> spec2 = specificationBuilder.fieldEquals("departmentId", q.departmentId());
         Specification<StaffView> spec3 = specificationBuilder.fieldEquals("role",
@@ -55,24 +55,42 @@ public class StaffQueryHandler {
                 .and(spec3)
                 .and(spec4);
 
+        if (PaginationMode.KEYSET.equals(q.pagination())) {
+            KeysetPageRequest keysetRequest = KeysetPageRequest.builder()
+                    .cursor(q.cursor())
+                    .size(q.size())
+                    .sortField(q.sortBy())
+                    .sortDir(q.sort())
+                    .idField("id")
+                    .withTotal(q.withTotal())
+                    .build();
+
+            return pageAndSortHelper.findKeyset(staffViewRepository, finalSpec, keysetRequest, this::toStaffDto,
+                    StaffsPagedDTO::new);
+        }
+
+        Pageable pageable = pageAndSortHelper.buildPageable(q.page(), q.size(), q.sortBy(), q.sort());
+
         Page<StaffView> pageResult = staffViewRepository.findAll(finalSpec, pageable);
 
-        return pageAndSortHelper.toPaged(pageResult, view -> {
-            String deptName = getDepartmentName(view.getDepartmentId());
-            return StaffDto.builder()
-                    .name(view.getName())
-                    .description(view.getDescription())
-                    .image(view.getImage())
-                    .id(view.getId())
-                    .email(view.getEmail())
-                    .eSignature(view.getESignature())
-                    .departmentId(view.getDepartmentId())
-                    .departmentName(deptName)
-                    .phone(view.getPhone())
-                    .role(view.getRole()
-                            .getCode())
-                    .build();
-        }, StaffsPagedDTO::new);
+        return pageAndSortHelper.toPaged(pageResult, this::toStaffDto, StaffsPagedDTO::new);
+    }
+
+    private StaffDto toStaffDto(StaffView view) {
+        String deptName = getDepartmentName(view.getDepartmentId());
+        return StaffDto.builder()
+                .name(view.getName())
+                .description(view.getDescription())
+                .image(view.getImage())
+                .id(view.getId())
+                .email(view.getEmail())
+                .eSignature(view.getESignature())
+                .departmentId(view.getDepartmentId())
+                .departmentName(deptName)
+                .phone(view.getPhone())
+                .role(view.getRole()
+                        .getCode())
+                .build();
     }
 
     @QueryHandler
@@ -3,6 +3,8 @@ package com.clinic.c46.StaffService.application.listener;
 import com.clinic.c46.CommonService.event.staff.DoctorCreatedEvent;
 import com.clinic.c46.CommonService.event.staff.DoctorDeletedEvent;
 import com.clinic.c46.CommonService.event.staff.DoctorUpdatedEvent;
+import com.clinic.c46.CommonService.event.staff.StaffRegisteredEvent;
+import com.clinic.c46.CommonService.event.staff.StaffRemovedEvent;
 import com.clinic.c46.StaffService.application.repository.StaffViewRepository;
 import com.clinic.c46.StaffService.domain.enums.Role;
 import com.clinic.c46.StaffService.domain.event.DayOffRequestedEvent;
@@ -30,6 +32,12 @@ public class StaffProjection {
         StaffView staffView = new StaffView(event);
         repository.save(staffView);
 
+        eventGateway.publish(StaffRegisteredEvent.builder()
+                .staffId(staffView.getId())
+                .role(staffView.getRole()
+                        .name())
+                .build());
+
         if (staffView.getRole()
                 .equals(Role.DOCTOR)) {
             eventGateway.publish(DoctorCreatedEvent.builder()
@@ -79,6 +87,10 @@ public class StaffProjection {
                     staffView.handleDelete();
                     repository.save(staffView);
 
+                    eventGateway.publish(StaffRemovedEvent.builder()
+                            .staffId(staffView.getId())
+                            .build());
+
                     if (staffView.getRole()
                             .equals(Role.DOCTOR)) {
                         eventGateway.publish(DoctorDeletedEvent.builder()
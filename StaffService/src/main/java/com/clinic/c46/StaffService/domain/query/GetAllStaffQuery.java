@@ -1,9 +1,10 @@
 package com.clinic.c46.StaffService.domain.query;
 
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SortDirection;
 import lombok.Builder;
 
 @Builder
 public record GetAllStaffQuery(String keyword, String departmentId, Integer role, int page, int size, String sortBy,
-                               SortDirection sort) {
+                               SortDirection sort, PaginationMode pagination, String cursor, boolean withTotal) {
 }
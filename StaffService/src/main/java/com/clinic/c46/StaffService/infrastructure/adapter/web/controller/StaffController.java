@@ -1,6 +1,7 @@
 package com.clinic.c46.StaffService.infrastructure.adapter.web.controller;
 
 
+import com.clinic.c46.CommonService.helper.PaginationMode;
 import com.clinic.c46.CommonService.helper.SortDirection;
 import com.clinic.c46.StaffService.application.dto.*;
 import com.clinic.c46.StaffService.application.service.StaffService;
@@ -66,7 +67,10 @@ public class StaffController {
             @RequestParam(required = false) String departmentId, @RequestParam(required = false) String sortBy,
             @RequestParam(required = false, defaultValue = "ASC") String sort,
             @RequestParam(required = false, defaultValue = "1") Integer page,
-            @RequestParam(required = false, defaultValue = "0") Integer size) {
+            @RequestParam(required = false, defaultValue = "0") Integer size,
+            @RequestParam(required = false, defaultValue = "OFFSET") PaginationMode pagination,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "false") boolean withTotal) {
         GetAllStaffQuery query = GetAllStaffQuery.builder()
                 .keyword(keyword)
                 .role(role)
@@ -75,6 +79,9 @@ public class StaffController {
                 .sort(SortDirection.valueOf(sort))
                 .page(page)
                 .size(size)
+                .pagination(pagination)
+                .cursor(cursor)
+                .withTotal(withTotal)
                 .build();
 
         return queryGateway.query(query, ResponseTypes.instanceOf(StaffsPagedDTO.class))
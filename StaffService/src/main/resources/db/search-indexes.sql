@@ -0,0 +1,14 @@
+-- Tìm kiếm từ khóa không dấu (app.search.keyword-strategy=trigram).
+-- Chạy sau khi Hibernate tạo bảng (spring.jpa.defer-datasource-initialization=true), mọi lệnh đều idempotent.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() là STABLE nên không dùng trực tiếp trong index được, bọc lại bằng hàm IMMUTABLE
+CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text AS
+'SELECT public.unaccent(''public.unaccent'', $1)'
+LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+CREATE INDEX IF NOT EXISTS idx_staff_view_name_trgm ON staff_view USING gin (f_unaccent(lower(name)) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_staff_view_description_trgm ON staff_view USING gin (f_unaccent(lower(description)) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_department_name_trgm ON department USING gin (f_unaccent(lower(name)) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_department_description_trgm ON department USING gin (f_unaccent(lower(description)) gin_trgm_ops);